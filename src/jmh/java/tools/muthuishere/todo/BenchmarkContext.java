@@ -0,0 +1,58 @@
+package tools.muthuishere.todo;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import tools.muthuishere.todo.cluster.ChangeNotificationBus;
+import tools.muthuishere.todo.security.McpAuthenticationConverter;
+import tools.muthuishere.todo.todo.TodoService;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal Spring context for benchmarks: the todo package on top of an in-memory H2,
+ * without the web server, security filter chain, Firebase or the MCP transport.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(basePackageClasses = {TodoService.class, ChangeNotificationBus.class})
+public class BenchmarkContext {
+
+    /**
+     * @param overrides --key=value arguments, replacing the defaults with the same key
+     */
+    public static ConfigurableApplicationContext start(String... overrides) {
+        Map<String, String> args = new LinkedHashMap<>();
+        args.put("spring.profiles.active", "bench");
+        args.put("spring.main.banner-mode", "off");
+        args.put("spring.ai.mcp.server.enabled", "false");
+        // unique database per context so benchmarks never see each other's rows
+        args.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID());
+        args.put("logging.level.root", "WARN");
+        for (String override : overrides) {
+            int separator = override.indexOf('=');
+            args.put(override.substring(2, separator), override.substring(separator + 1));
+        }
+        return new SpringApplicationBuilder(BenchmarkContext.class)
+                .web(WebApplicationType.NONE)
+                .run(args.entrySet().stream().map(arg -> "--" + arg.getKey() + "=" + arg.getValue())
+                        .toArray(String[]::new));
+    }
+
+    /**
+     * Authenticates the calling thread the same way the resource server does, so MCPContextHolder resolves the email.
+     */
+    public static void authenticate(String email) {
+        Jwt jwt = new Jwt("bench-token", Instant.now(), Instant.now().plusSeconds(3600),
+                Map.of("alg", "RS256"), Map.of("email", email, "sub", "uid-" + email));
+        SecurityContextHolder.getContext().setAuthentication(new McpAuthenticationConverter().convert(jwt));
+    }
+}
@@ -0,0 +1,178 @@
+package tools.muthuishere.todo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of 1..N replicas behind a client-side load balancer, all in this JVM.
+ * <p>
+ * The nodes run with the cluster profile on one shared in-memory H2 database, once with the jdbc change bus
+ * they would use on separate machines and once with the in-process one, i.e. the same code paths as
+ * separate machines with a shared database, minus the network. Each node
+ * gets a small Tomcat pool, so one node is the bottleneck and adding nodes has room to help until the
+ * machine's cores run out. Each client holds a session on every node and sends each call to a random one,
+ * so follow-up requests of a user land anywhere.
+ * <p>
+ * After each run a todo is written on one node and read back through every other node, which fails if
+ * a node kept serving its cached list. Exits with 1 when that check fails or scaling efficiency
+ * (throughput per node relative to one node) drops below the given minimum.
+ *
+ * <pre>./gradlew clusterTest -PclusterTest.nodes=1,2,4 -PclusterTest.profile=streamable -PclusterTest.bus=jdbc,in-process</pre>
+ */
+public class ClusterScalingLoadTest {
+
+    static final String TOMCAT_THREADS = "4";
+    static final int CLIENTS = 64;
+    static final Duration WARMUP = Duration.ofSeconds(5);
+    static final Duration MEASURE = Duration.ofSeconds(20);
+
+    public static void main(String[] args) throws Exception {
+        int[] nodeCounts = Arrays.stream((args.length > 0 ? args[0] : "1,2,4").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        double minEfficiency = args.length > 1 ? Double.parseDouble(args[1]) : 0.6;
+        String transport = args.length > 2 ? args[2] : "streamable";
+        String[] buses = (args.length > 3 ? args[3] : "jdbc,in-process").split(",");
+        ServerHarness harness = new ServerHarness();
+        Path sessionDir = Files.createTempDirectory("todo-sessions");
+
+        boolean passed = true;
+        System.out.println("Transport: " + transport);
+        for (String bus : buses) {
+            double singleNode = Double.NaN;
+            System.out.println("Change bus: " + bus);
+            System.out.printf("%6s %12s %10s %10s %11s %9s%n", "nodes", "calls/s", "p50 ms", "p99 ms", "efficiency", "coherent");
+            for (int nodes : nodeCounts) {
+                List<ConfigurableApplicationContext> servers = new ArrayList<>();
+                try {
+                    for (int i = 0; i < nodes; i++) {
+                        servers.add(harness.start(transport + ",cluster",
+                                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                                "--spring.datasource.url=jdbc:h2:mem:cluster-" + bus + "-" + nodes + ";DB_CLOSE_DELAY=-1",
+                                "--todo.cluster.bus=" + bus,
+                                "--todo.cluster.name=scale-" + bus + "-" + nodes,
+                                "--todo.cluster.node-id=node-" + i,
+                                "--todo.cluster.session-store.dir=" + sessionDir,
+                                "--mcp.rate-limit.enabled=false"));
+                    }
+                    List<String> baseUrls = servers.stream()
+                            .map(server -> "http://localhost:" + ServerHarness.port(server))
+                            .toList();
+                    SessionCapacityLoadTest.Result result = run(harness, baseUrls);
+                    double throughput = result.ok / (double) MEASURE.toSeconds();
+                    if (Double.isNaN(singleNode)) {
+                        singleNode = throughput / nodes;
+                    }
+                    double efficiency = throughput / (singleNode * nodes);
+                    boolean coherent = checkCoherence(harness, baseUrls);
+                    System.out.printf("%6d %12.1f %10.1f %10.1f %10.0f%% %9s%n", nodes, throughput,
+                            result.percentile(50), result.percentile(99), efficiency * 100, coherent ? "yes" : "NO");
+                    passed &= coherent && efficiency >= minEfficiency;
+                } finally {
+                    servers.forEach(ConfigurableApplicationContext::close);
+                }
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    static SessionCapacityLoadTest.Result run(ServerHarness harness, List<String> baseUrls) throws Exception {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clients)
+                    .build();
+            long measureFrom = System.nanoTime() + WARMUP.toNanos();
+            long until = measureFrom + MEASURE.toNanos();
+            List<Future<SessionCapacityLoadTest.Result>> running = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                String token = harness.token("cluster" + c + "@example.com");
+                running.add(clients.submit(() -> {
+                    // one session per node, each call picks a node at random
+                    List<StreamableMcpClient> perNode = new ArrayList<>();
+                    for (String baseUrl : baseUrls) {
+                        StreamableMcpClient client = new StreamableMcpClient(http, baseUrl, token);
+                        client.initialize();
+                        perNode.add(client);
+                    }
+                    SessionCapacityLoadTest.Result result = new SessionCapacityLoadTest.Result();
+                    while (System.nanoTime() < until) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        StreamableMcpClient client = perNode.get(random.nextInt(perNode.size()));
+                        long start = System.nanoTime();
+                        try {
+                            if (random.nextInt(5) == 0) {
+                                client.callTool("make-todo", Map.of("title", "Load " + start,
+                                        "description", "cluster scaling", "completed", false));
+                            } else {
+                                client.callTool("fetch-todos-page", Map.of("limit", 20));
+                            }
+                            if (start >= measureFrom) {
+                                result.latenciesNanos.add(System.nanoTime() - start);
+                                result.ok++;
+                            }
+                        } catch (Exception e) {
+                            result.failed++;
+                        }
+                    }
+                    return result;
+                }));
+            }
+            SessionCapacityLoadTest.Result total = new SessionCapacityLoadTest.Result();
+            for (Future<SessionCapacityLoadTest.Result> future : running) {
+                SessionCapacityLoadTest.Result result = future.get(WARMUP.plus(MEASURE).toSeconds() + 60, TimeUnit.SECONDS);
+                total.ok += result.ok;
+                total.failed += result.failed;
+                total.latenciesNanos.addAll(result.latenciesNanos);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Warms every node's cache with the user's todos, writes on the first node and expects every node
+     * to list the new todo within a second.
+     */
+    static boolean checkCoherence(ServerHarness harness, List<String> baseUrls) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        String token = harness.token("coherence@example.com");
+        List<StreamableMcpClient> clients = new ArrayList<>();
+        for (String baseUrl : baseUrls) {
+            StreamableMcpClient client = new StreamableMcpClient(http, baseUrl, token);
+            client.initialize();
+            clients.add(client);
+            client.callTool("fetch-all-todos", Map.of());
+        }
+        String title = "Coherence " + System.nanoTime();
+        clients.getFirst().callTool("make-todo", Map.of("title", title, "description", "", "completed", false));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        for (StreamableMcpClient client : clients) {
+            while (!lists(client, title)) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+        }
+        return true;
+    }
+
+    private static boolean lists(StreamableMcpClient client, String title) throws Exception {
+        JsonNode result = client.callTool("fetch-all-todos", Map.of("fields", "title"));
+        return result.toString().contains(title);
+    }
+}
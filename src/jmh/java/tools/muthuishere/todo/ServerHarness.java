@@ -0,0 +1,82 @@
+package tools.muthuishere.todo;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Starts the real TodoApplication (web, security, MCP transport) on a random port for load tests.
+ * Tokens are verified offline: a throwaway RS256 key is written to a JWKS file and used by the
+ * local-jwks verifier, so no Firebase project or network access is needed.
+ */
+public class ServerHarness {
+
+    public static final String PROJECT_ID = "todo-load";
+
+    private final RSAKey signingKey;
+    private final Path jwksFile;
+
+    public ServerHarness() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("load-key").generate();
+        jwksFile = Files.createTempFile("todo-jwks", ".json");
+        jwksFile.toFile().deleteOnExit();
+        Files.writeString(jwksFile, new JWKSet(signingKey.toPublicJWK()).toString());
+    }
+
+    /**
+     * @param profiles comma separated profiles, e.g. "streamable,virtual"
+     */
+    public ConfigurableApplicationContext start(String profiles, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=" + profiles,
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--firebase.jwt.verifier=local-jwks",
+                "--firebase.jwt.jwks-file=" + jwksFile,
+                "--firebase.project-id=" + PROJECT_ID,
+                "--spring.h2.console.enabled=false"
+        ));
+        args.addAll(Arrays.asList(extraArgs));
+        return new SpringApplicationBuilder(TodoApplication.class).run(args.toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    /**
+     * A Firebase-shaped ID token for this email, valid for an hour.
+     */
+    public String token(String email) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer("https://securetoken.google.com/" + PROJECT_ID)
+                .audience(PROJECT_ID)
+                .subject("uid-" + email)
+                .claim("email", email)
+                .claim("email_verified", true)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+}
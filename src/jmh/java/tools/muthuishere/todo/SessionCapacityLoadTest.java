@@ -0,0 +1,116 @@
+package tools.muthuishere.todo;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent session capacity of the streamable profile on platform threads vs. virtual threads.
+ * For each session count, every session initializes, keeps its notification stream open
+ * and then all of them call fetch-all-todos at once. Reports how many calls succeeded and their latency.
+ *
+ * <pre>./gradlew loadTest -PloadTest.sessions=100,500,1000</pre>
+ */
+public class SessionCapacityLoadTest {
+
+    // small on purpose, the platform mode is capped by this pool
+    static final String TOMCAT_THREADS = "50";
+
+    public static void main(String[] args) throws Exception {
+        int[] sessionCounts = Arrays.stream((args.length > 0 ? args[0] : "100,500,1000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        ServerHarness harness = new ServerHarness();
+
+        System.out.printf("%-10s %9s %9s %9s %10s %10s%n", "mode", "sessions", "ok", "failed", "p50 ms", "p99 ms");
+        for (String mode : List.of("platform", "virtual")) {
+            String profiles = mode.equals("virtual") ? "streamable,virtual" : "streamable";
+            try (ConfigurableApplicationContext server = harness.start(profiles,
+                    "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                    "--server.tomcat.max-connections=10000",
+                    "--spring.datasource.url=jdbc:h2:mem:load-" + mode)) {
+                String baseUrl = "http://localhost:" + ServerHarness.port(server);
+                for (int sessions : sessionCounts) {
+                    Result result = run(harness, baseUrl, sessions);
+                    System.out.printf("%-10s %9d %9d %9d %10.1f %10.1f%n", mode, sessions,
+                            result.ok, result.failed, result.percentile(50), result.percentile(99));
+                }
+            }
+        }
+    }
+
+    static Result run(ServerHarness harness, String baseUrl, int sessions) throws Exception {
+        // the client side always uses virtual threads, so it is never the bottleneck
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clients)
+                    .build();
+
+            List<StreamableMcpClient> opened = new ArrayList<>();
+            List<Future<StreamableMcpClient>> connecting = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                String token = harness.token("load" + i + "@example.com");
+                connecting.add(clients.submit(() -> {
+                    StreamableMcpClient client = new StreamableMcpClient(http, baseUrl, token);
+                    client.initialize();
+                    client.openNotificationStream();
+                    return client;
+                }));
+            }
+            int failed = 0;
+            for (Future<StreamableMcpClient> future : connecting) {
+                try {
+                    opened.add(future.get(60, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    failed++;
+                }
+            }
+
+            List<Future<Long>> calls = new ArrayList<>();
+            for (StreamableMcpClient client : opened) {
+                calls.add(clients.submit(() -> {
+                    long start = System.nanoTime();
+                    client.callTool("fetch-all-todos", Map.of());
+                    return System.nanoTime() - start;
+                }));
+            }
+            Result result = new Result();
+            result.failed = failed;
+            for (Future<Long> call : calls) {
+                try {
+                    result.latenciesNanos.add(call.get(60, TimeUnit.SECONDS));
+                    result.ok++;
+                } catch (Exception e) {
+                    result.failed++;
+                }
+            }
+            opened.forEach(StreamableMcpClient::close);
+            return result;
+        }
+    }
+
+    static class Result {
+        int ok;
+        int failed;
+        final List<Long> latenciesNanos = new ArrayList<>();
+
+        double percentile(int p) {
+            if (latenciesNanos.isEmpty()) {
+                return Double.NaN;
+            }
+            List<Long> sorted = latenciesNanos.stream().sorted().toList();
+            int index = Math.min(sorted.size() - 1, (int) Math.ceil(p / 100.0 * sorted.size()) - 1);
+            return sorted.get(Math.max(0, index)) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package tools.muthuishere.todo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches the boot jar with the stdio profile, the way an MCP client spawns it, and measures the time from
+ * starting the JVM to the answer of the first tools/call (initialize, initialized, fetch-all-todos).
+ * The median over all runs is printed and written as JSON next to the JMH results.
+ *
+ * <pre>./gradlew startupTime -PstartupTime.runs=5 -PstartupTime.jvmArgs="-XX:TieredStopAtLevel=1"</pre>
+ */
+public class StartupTimeProbe {
+
+    static final ObjectMapper JSON = new ObjectMapper();
+    static final long TIMEOUT_SECONDS = 120;
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args[0]);
+        Path resultsFile = Path.of(args[1]);
+        int runs = Integer.parseInt(args[2]);
+        List<String> jvmArgs = args.length > 3 && !args[3].isBlank()
+                ? Arrays.asList(args[3].trim().split("\\s+"))
+                : List.of();
+
+        List<Map<String, Long>> measurements = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            Map<String, Long> measurement = measure(jar, jvmArgs);
+            measurements.add(measurement);
+            System.out.printf("run %d: initialize %d ms, first tool response %d ms%n", run,
+                    measurement.get("initializeMillis"), measurement.get("firstToolResponseMillis"));
+        }
+
+        long median = measurements.stream().mapToLong(m -> m.get("firstToolResponseMillis")).sorted()
+                .skip(runs / 2).findFirst().orElseThrow();
+        System.out.printf("time to first tool response: %d ms (median of %d)%n", median, runs);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jar", jar.getFileName().toString());
+        result.put("jvmArgs", jvmArgs);
+        result.put("medianFirstToolResponseMillis", median);
+        result.put("runs", measurements);
+        Files.createDirectories(resultsFile.getParent());
+        JSON.writerWithDefaultPrettyPrinter().writeValue(resultsFile.toFile(), result);
+    }
+
+    static Map<String, Long> measure(Path jar, List<String> jvmArgs) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", jar.toString(),
+                "--spring.profiles.active=stdio",
+                "--mcp.stdio.user-email=startup@example.com",
+                // stdio never verifies a token, but the placeholders in application.properties must resolve
+                "--firebase.project-id=startup-probe",
+                "--firebase.apiKey=",
+                "--firebase.service-account-key="));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream in = process.getOutputStream()) {
+            send(in, Map.of("jsonrpc", "2.0", "id", 1, "method", "initialize", "params", Map.of(
+                    "protocolVersion", "2025-03-26",
+                    "capabilities", Map.of(),
+                    "clientInfo", Map.of("name", "startup-probe", "version", "1.0"))));
+            awaitResponse(out, 1);
+            long initialized = System.nanoTime();
+
+            send(in, Map.of("jsonrpc", "2.0", "method", "notifications/initialized"));
+            send(in, Map.of("jsonrpc", "2.0", "id", 2, "method", "tools/call",
+                    "params", Map.of("name", "fetch-all-todos", "arguments", Map.of())));
+            JsonNode response = awaitResponse(out, 2);
+            long answered = System.nanoTime();
+            if (response.has("error") || response.path("result").path("isError").asBoolean(false)) {
+                throw new IllegalStateException("fetch-all-todos failed: " + response);
+            }
+            return Map.of(
+                    "initializeMillis", TimeUnit.NANOSECONDS.toMillis(initialized - start),
+                    "firstToolResponseMillis", TimeUnit.NANOSECONDS.toMillis(answered - start));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    static void send(OutputStream in, Object message) throws IOException {
+        in.write(JSON.writeValueAsBytes(message));
+        in.write('\n');
+        in.flush();
+    }
+
+    // stdio messages are newline delimited, anything else on stdout is skipped
+    static JsonNode awaitResponse(BufferedReader out, int id) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (!line.startsWith("{")) {
+                        continue;
+                    }
+                    JsonNode message = JSON.readTree(line);
+                    if (message.path("id").asInt(-1) == id) {
+                        return message;
+                    }
+                }
+                throw new IllegalStateException("Server exited before answering request " + id);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
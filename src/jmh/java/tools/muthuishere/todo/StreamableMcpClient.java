@@ -0,0 +1,131 @@
+package tools.muthuishere.todo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bare-bones MCP client for the streamable and stateless HTTP transports, just enough JSON-RPC
+ * for load tests: initialize, optional notification stream, tools/call.
+ */
+public class StreamableMcpClient implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final URI endpoint;
+    private final String token;
+    private final AtomicLong ids = new AtomicLong();
+    private String sessionId;
+    private CompletableFuture<HttpResponse<InputStream>> notificationStream;
+
+    public StreamableMcpClient(HttpClient http, String baseUrl, String token) {
+        this.http = http;
+        this.endpoint = URI.create(baseUrl + "/mcp");
+        this.token = token;
+    }
+
+    public void initialize() throws IOException, InterruptedException {
+        HttpResponse<String> response = post(Map.of(
+                "jsonrpc", "2.0",
+                "id", ids.incrementAndGet(),
+                "method", "initialize",
+                "params", Map.of(
+                        "protocolVersion", "2025-03-26",
+                        "capabilities", Map.of(),
+                        "clientInfo", Map.of("name", "todo-load-test", "version", "1.0"))));
+        check(response);
+        sessionId = response.headers().firstValue("Mcp-Session-Id").orElse(null);
+        check(post(Map.of("jsonrpc", "2.0", "method", "notifications/initialized")));
+    }
+
+    /**
+     * Opens the long-lived GET stream the server uses for notifications, as real streamable clients do.
+     */
+    public void openNotificationStream() {
+        if (sessionId == null) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream")
+                .header("Mcp-Session-Id", sessionId)
+                .GET()
+                .build();
+        notificationStream = http.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Calls a tool and returns the JSON-RPC result node, throws when the call failed.
+     */
+    public JsonNode callTool(String name, Map<String, Object> arguments) throws IOException, InterruptedException {
+        HttpResponse<String> response = post(Map.of(
+                "jsonrpc", "2.0",
+                "id", ids.incrementAndGet(),
+                "method", "tools/call",
+                "params", Map.of("name", name, "arguments", arguments)));
+        check(response);
+        JsonNode message = JSON.readTree(payload(response.body()));
+        if (message.has("error")) {
+            throw new IOException("Tool call failed: " + message.get("error"));
+        }
+        return message.get("result");
+    }
+
+    private HttpResponse<String> post(Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+        if (sessionId != null) {
+            request.header("Mcp-Session-Id", sessionId);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void check(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() >= 300) {
+            throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    // Responses come back either as plain JSON or as a single SSE event
+    private static String payload(String body) {
+        if (!body.startsWith("event:") && !body.startsWith("data:") && !body.startsWith("id:")) {
+            return body;
+        }
+        StringBuilder data = new StringBuilder();
+        for (String line : body.split("\n")) {
+            if (line.startsWith("data:")) {
+                data.append(line.substring(5).trim());
+            }
+        }
+        return data.toString();
+    }
+
+    @Override
+    public void close() {
+        if (notificationStream != null) {
+            notificationStream.thenAccept(response -> {
+                try {
+                    response.body().close();
+                } catch (IOException ignored) {
+                    // connection is going away anyway
+                }
+            });
+            notificationStream.cancel(true);
+        }
+    }
+}
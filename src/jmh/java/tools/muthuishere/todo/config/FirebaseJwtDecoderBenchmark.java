@@ -0,0 +1,89 @@
+package tools.muthuishere.todo.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode throughput of FirebaseJwtDecoder against a local RS256 key (no network).
+ * Run with the gc profiler to compare allocation per decode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FirebaseJwtDecoderBenchmark {
+
+    static final String PROJECT_ID = "todo-bench";
+
+    private FirebaseJwtDecoder uncachedDecoder;
+    private FirebaseJwtDecoder cachedDecoder;
+    private String idToken;
+    private String wrappedToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("bench-key").generate();
+        LocalJwksTokenVerifier verifier = LocalJwksTokenVerifier.fromJwkSet(PROJECT_ID,
+                new JWKSet(key.toPublicJWK()), Clock.systemUTC());
+
+        uncachedDecoder = new FirebaseJwtDecoder(verifier, new VerifiedTokenCache(0));
+        cachedDecoder = new FirebaseJwtDecoder(verifier, new VerifiedTokenCache(1_000));
+
+        idToken = signIdToken(key, "bench@example.com");
+        // Access tokens from the auth server carry the Firebase token in a firebase_token claim
+        wrappedToken = new PlainJWT(new JWTClaimsSet.Builder()
+                .claim("firebase_token", idToken)
+                .build()).serialize();
+    }
+
+    static String signIdToken(RSAKey key, String email) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer("https://securetoken.google.com/" + PROJECT_ID)
+                .audience(PROJECT_ID)
+                .subject("uid-" + email)
+                .claim("email", email)
+                .claim("email_verified", true)
+                .claim("name", "Bench User")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    @Benchmark
+    public Jwt decodeIdToken() {
+        return uncachedDecoder.decode(idToken);
+    }
+
+    @Benchmark
+    public Jwt decodeWrappedToken() {
+        return uncachedDecoder.decode(wrappedToken);
+    }
+
+    @Benchmark
+    public Jwt decodeCached() {
+        return cachedDecoder.decode(wrappedToken);
+    }
+}
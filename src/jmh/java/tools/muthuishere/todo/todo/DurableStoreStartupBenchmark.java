@@ -0,0 +1,135 @@
+package tools.muthuishere.todo.todo;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.muthuishere.todo.BenchmarkContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cold start of the durable profile on a file-backed H2 holding {@code rows} todos.
+ * Each iteration opens the data file once, so the score is time until the first query is answered:
+ * after a clean shutdown, after a crash (no shutdown) and for the whole Spring context
+ * including Flyway validation, Hibernate schema validation and filling the connection pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DurableStoreStartupBenchmark {
+
+    static final int EMAILS = 10_000;
+    static final String USER = "sa";
+    static final String PASSWORD = "password";
+
+    @Param({"1000000", "5000000"})
+    int rows;
+
+    Path dataDir;
+    String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("todo-durable");
+        url = "jdbc:h2:file:" + dataDir.resolve("todo-db");
+        Flyway.configure().dataSource(url, USER, PASSWORD).load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, USER, PASSWORD);
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into todo (id, title, description, completed, email, created_at, updated_at) "
+                             + "select x, 'Todo ' || x, 'Description ' || x, mod(x, 3) = 0, "
+                             + "'user' || mod(x, " + EMAILS + ") || '@example.com', current_timestamp, current_timestamp "
+                             + "from system_range(1, ?)");
+             Statement statement = connection.createStatement()) {
+            insert.setLong(1, rows);
+            insert.executeUpdate();
+            statement.execute("alter sequence todo_seq restart with " + (rows + 1));
+            statement.execute("shutdown compact");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Leaves the store the way a killed process would: committed writes, no clean shutdown.
+     */
+    @State(Scope.Benchmark)
+    public static class Crashed {
+
+        @Setup(Level.Iteration)
+        public void crash(DurableStoreStartupBenchmark benchmark) throws SQLException {
+            Connection connection = DriverManager.getConnection(benchmark.url, USER, PASSWORD);
+            Statement statement = connection.createStatement();
+            statement.executeUpdate("update todo set completed = not completed where mod(id, 1000) = 0");
+            try {
+                statement.execute("shutdown immediately");
+            } catch (SQLException e) {
+                // expected, shutdown immediately drops the connection under us
+            }
+        }
+    }
+
+    @Benchmark
+    public long openAfterCleanShutdown() throws SQLException {
+        return openAndQuery();
+    }
+
+    @Benchmark
+    public long openAfterCrash(Crashed crashed) throws SQLException {
+        return openAndQuery();
+    }
+
+    @Benchmark
+    public long startContext() {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start(
+                "--spring.profiles.active=bench,durable",
+                "--TODO_DATA_DIR=" + dataDir)) {
+            return context.getBean(TodoRepository.class).countByEmail(email(1));
+        }
+    }
+
+    private long openAndQuery() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, USER, PASSWORD);
+             PreparedStatement count = connection.prepareStatement("select count(*) from todo where email = ?")) {
+            count.setString(1, email(1));
+            try (ResultSet result = count.executeQuery()) {
+                result.next();
+                return result.getLong(1);
+            }
+        }
+    }
+
+    static String email(int n) {
+        return "user" + n + "@example.com";
+    }
+}
@@ -0,0 +1,104 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import tools.muthuishere.todo.security.McpAuthenticationConverter;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of resolving the user at the start of a tool: the resolved McpPrincipal against
+ * the previous lookup (claims map + Optional + a new exception when nobody is logged in).
+ * Compare ns/op and gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MCPContextHolderBenchmark {
+
+    Authentication resolved;
+    Authentication plainJwt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Jwt jwt = new Jwt("bench-token", Instant.now(), Instant.now().plusSeconds(3600),
+                Map.of("alg", "RS256"), Map.of("email", "bench@example.com", "sub", "uid-bench"));
+        resolved = new McpAuthenticationConverter().convert(jwt);
+        plainJwt = new JwtAuthenticationToken(jwt);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String resolvedPrincipal() {
+        SecurityContextHolder.getContext().setAuthentication(resolved);
+        return MCPContextHolder.getEmail();
+    }
+
+    @Benchmark
+    public String previousLookup() {
+        SecurityContextHolder.getContext().setAuthentication(resolved);
+        return previousGetEmail();
+    }
+
+    @Benchmark
+    public Object missingUser() {
+        SecurityContextHolder.getContext().setAuthentication(null);
+        try {
+            return MCPContextHolder.getEmail();
+        } catch (MCPContextHolder.NotAuthenticatedException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object previousMissingUser() {
+        SecurityContextHolder.getContext().setAuthentication(null);
+        try {
+            return previousGetEmail();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public String tokenWithoutPrincipal() {
+        SecurityContextHolder.getContext().setAuthentication(plainJwt);
+        return MCPContextHolder.getEmail();
+    }
+
+    // MCPContextHolder.getEmail as it was before McpPrincipal
+    static String previousGetEmail() {
+        return previousFindEmail().orElseThrow(() ->
+                new RuntimeException("No authenticated user found. Please authenticate with a valid Firebase JWT token."));
+    }
+
+    static Optional<String> previousFindEmail() {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof Jwt jwt) {
+                return Optional.ofNullable(jwt.getClaimAsString("email"));
+            }
+            return Optional.empty();
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.muthuishere.todo.BenchmarkContext;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user lookups on a table with {@code rows} todos spread over 10k emails (~rows/10k each).
+ * With the (email, ...) indexes the timings should stay roughly flat as rows grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TodoIndexBenchmark {
+
+    static final int EMAILS = 10_000;
+    static final int INSERT_BATCH = 10_000;
+
+    @Param({"100000", "1000000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    TodoRepository todoRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        todoRepository = context.getBean(TodoRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{(long) i, "Todo " + i, "Description " + i, i % 3 == 0, email(i % EMAILS), now, now});
+            if (batch.size() == INSERT_BATCH || i == rows) {
+                jdbc.batchUpdate("insert into todo (id, title, description, completed, email, created_at, updated_at) "
+                        + "values (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static String email(int n) {
+        return "user" + n + "@example.com";
+    }
+
+    static String randomEmail() {
+        return email(ThreadLocalRandom.current().nextInt(EMAILS));
+    }
+
+    @Benchmark
+    public List<Todo> findByEmail() {
+        return todoRepository.findByEmail(randomEmail());
+    }
+
+    @Benchmark
+    public List<TodoSummary> findSummariesByEmail() {
+        return todoRepository.findSummariesByEmail(randomEmail());
+    }
+
+    @Benchmark
+    public List<Todo> findByEmailAndCompleted() {
+        return todoRepository.findByEmailAndCompleted(randomEmail(), false);
+    }
+
+    @Benchmark
+    public long countByEmail() {
+        return todoRepository.countByEmail(randomEmail());
+    }
+
+    @Benchmark
+    public Optional<Todo> findByIdAndEmail() {
+        int id = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        return todoRepository.findByIdAndEmail((long) id, email(id % EMAILS));
+    }
+}
@@ -0,0 +1,83 @@
+package tools.muthuishere.todo.todo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoToolResponse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON round trip of the payloads the tools return, with the same ObjectMapper defaults Spring Boot uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoJsonBenchmark {
+
+    private static final TypeReference<List<Todo>> TODO_LIST = new TypeReference<>() {};
+
+    @Param({"1", "100"})
+    int todoCount;
+
+    ObjectMapper objectMapper;
+    List<Todo> todos;
+    TodoToolResponse toolResponse;
+    byte[] todosJson;
+    byte[] toolResponseJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.now();
+        todos = new ArrayList<>(todoCount);
+        for (int i = 0; i < todoCount; i++) {
+            todos.add(Todo.builder()
+                    .id((long) i)
+                    .title("Todo " + i)
+                    .description("Description of todo number " + i)
+                    .completed(i % 2 == 0)
+                    .email("bench@example.com")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        toolResponse = TodoToolResponse.builder()
+                .todo(todos.get(0))
+                .build();
+        todosJson = objectMapper.writeValueAsBytes(todos);
+        toolResponseJson = objectMapper.writeValueAsBytes(toolResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeTodos() throws Exception {
+        return objectMapper.writeValueAsBytes(todos);
+    }
+
+    @Benchmark
+    public List<Todo> deserializeTodos() throws Exception {
+        return objectMapper.readValue(todosJson, TODO_LIST);
+    }
+
+    @Benchmark
+    public byte[] serializeToolResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(toolResponse);
+    }
+
+    @Benchmark
+    public TodoToolResponse deserializeToolResponse() throws Exception {
+        return objectMapper.readValue(toolResponseJson, TodoToolResponse.class);
+    }
+}
@@ -0,0 +1,107 @@
+package tools.muthuishere.todo.todo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoList;
+import tools.muthuishere.todo.todo.model.TodoShape;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bytes and time to serialize a fetch-all-todos result per response shape, plain and gzipped.
+ * "entity" is the list written by plain Jackson as before, the other shapes go through TodoList.
+ * The bytes column is the size of one response; run single-threaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoResponseSizeBenchmark {
+
+    @Param({"entity", "full", "compact", "id,title,completed"})
+    String shape;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    @Param({"10", "100"})
+    int todoCount;
+
+    ObjectMapper objectMapper;
+    Object response;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.now();
+        List<Todo> todos = new ArrayList<>(todoCount);
+        for (int i = 0; i < todoCount; i++) {
+            todos.add(Todo.builder()
+                    .id((long) i)
+                    .title("Todo " + i)
+                    .description(i % 3 == 0 ? null
+                            : "Follow up on item " + i + " with the team and write down what was agreed, "
+                            + "including open questions and who owns each of them")
+                    .completed(i % 2 == 0)
+                    .email("bench@example.com")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        response = switch (shape) {
+            case "entity" -> todos;
+            case "full" -> TodoList.of(todos, TodoShape.FULL);
+            case "compact" -> TodoList.of(todos, TodoShape.COMPACT);
+            default -> TodoList.of(todos, TodoShape.of(null, shape, TodoShape.FULL));
+        };
+    }
+
+    @Benchmark
+    public long serialize(Size size) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream out = new GZIPOutputStream(counter)) {
+                objectMapper.writeValue(out, response);
+            }
+        } else {
+            objectMapper.writeValue(counter, response);
+        }
+        size.bytes = counter.count;
+        return counter.count;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
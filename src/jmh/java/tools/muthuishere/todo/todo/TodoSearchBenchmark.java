@@ -0,0 +1,91 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoSearchHit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * search-todos against one user with {@code todos} todos, the index is built in setup.
+ * Words follow a skewed distribution, so common words hit a large share of the todos and rare ones a handful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoSearchBenchmark {
+
+    static final String EMAIL = "bench@example.com";
+    static final int VOCABULARY = 20_000;
+
+    @Param({"10000", "100000"})
+    int todos;
+
+    TodoSearchIndex index;
+    String[] rareQueries;
+    String[] commonQueries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Todo> rows = new ArrayList<>(todos);
+        for (int i = 1; i <= todos; i++) {
+            rows.add(Todo.builder()
+                    .id((long) i)
+                    .title(words(random, 4))
+                    .description(words(random, 16))
+                    .completed(i % 3 == 0)
+                    .build());
+        }
+        index = new TodoSearchIndex(10, Duration.ofHours(1));
+        index.search(EMAIL, "warmup", null, 1, () -> rows);
+
+        rareQueries = new String[256];
+        commonQueries = new String[256];
+        for (int i = 0; i < rareQueries.length; i++) {
+            rareQueries[i] = "w" + (VOCABULARY - 1 - random.nextInt(VOCABULARY / 2)) + " w" + (VOCABULARY - 1 - random.nextInt(VOCABULARY / 2));
+            commonQueries[i] = "w" + random.nextInt(10) + " w" + random.nextInt(100);
+        }
+    }
+
+    // roughly Zipf: word n is picked with probability ~ 1/(n+1)
+    static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int word = (int) Math.pow(VOCABULARY, random.nextDouble()) - 1;
+            text.append(i == 0 ? "" : " ").append('w').append(word);
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public List<TodoSearchHit> rareTerms() {
+        return index.search(EMAIL, rareQueries[ThreadLocalRandom.current().nextInt(rareQueries.length)], null, 10,
+                List::of);
+    }
+
+    @Benchmark
+    public List<TodoSearchHit> commonTerms() {
+        return index.search(EMAIL, commonQueries[ThreadLocalRandom.current().nextInt(commonQueries.length)], null, 10,
+                List::of);
+    }
+
+    @Benchmark
+    public List<TodoSearchHit> commonTermsPendingOnly() {
+        return index.search(EMAIL, commonQueries[ThreadLocalRandom.current().nextInt(commonQueries.length)], false, 10,
+                List::of);
+    }
+}
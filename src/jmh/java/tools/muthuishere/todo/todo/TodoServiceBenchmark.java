@@ -0,0 +1,92 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.muthuishere.todo.BenchmarkContext;
+import tools.muthuishere.todo.todo.model.Todo;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TodoService CRUD against the in-memory H2 database, for a user that already owns {@code todosPerUser} todos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoServiceBenchmark {
+
+    static final String EMAIL = "bench@example.com";
+
+    @Param({"10", "1000"})
+    int todosPerUser;
+
+    ConfigurableApplicationContext context;
+    TodoService todoService;
+    long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        todoService = context.getBean(TodoService.class);
+        ids = new long[todosPerUser];
+        for (int i = 0; i < todosPerUser; i++) {
+            ids[i] = todoService.createTodo(newTodo(i), EMAIL).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static Todo newTodo(int i) {
+        return Todo.builder()
+                .title("Todo " + i)
+                .description("Benchmark todo number " + i)
+                .completed(i % 2 == 0)
+                .build();
+    }
+
+    long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public List<Todo> getAllTodos() {
+        return todoService.getAllTodos(EMAIL);
+    }
+
+    @Benchmark
+    public Optional<Todo> getTodoById() {
+        return todoService.getTodoById(randomId(), EMAIL);
+    }
+
+    @Benchmark
+    public Optional<Todo> updateTodo() {
+        return todoService.updateTodo(randomId(), newTodo(1), EMAIL);
+    }
+
+    @Benchmark
+    public boolean markAsCompleted() {
+        return todoService.markAsCompleted(randomId(), EMAIL);
+    }
+
+    @Benchmark
+    public boolean createAndDeleteTodo() {
+        // paired so the table size stays constant across iterations
+        Todo created = todoService.createTodo(newTodo(0), EMAIL);
+        return todoService.deleteTodo(created.getId(), EMAIL);
+    }
+}
@@ -0,0 +1,106 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.muthuishere.todo.BenchmarkContext;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoPage;
+import tools.muthuishere.todo.todo.model.TodoStats;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TodoService on the JPA store vs. the in-memory store, with the todo cache off so every call reaches the store.
+ * Run with several threads (-t) to see the striped locks of the memory store against the connection pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoStoreBenchmark {
+
+    static final int USERS = 100;
+
+    @Param({"jpa", "memory"})
+    String store;
+
+    @Param({"10", "1000"})
+    int todosPerUser;
+
+    ConfigurableApplicationContext context;
+    TodoService todoService;
+    long[][] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = store.equals("memory")
+                ? BenchmarkContext.start("--todo.store=memory", "--todo.cache.enabled=false",
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration")
+                : BenchmarkContext.start("--todo.store=jpa", "--todo.cache.enabled=false");
+        todoService = context.getBean(TodoService.class);
+        ids = new long[USERS][todosPerUser];
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < todosPerUser; i++) {
+                ids[user][i] = todoService.createTodo(TodoServiceBenchmark.newTodo(i), email(user)).getId();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static String email(int user) {
+        return "user" + user + "@example.com";
+    }
+
+    @Benchmark
+    public List<Todo> getAllTodos() {
+        return todoService.getAllTodos(email(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    public TodoPage getTodoPage() {
+        return todoService.getTodoPage(email(ThreadLocalRandom.current().nextInt(USERS)), null, 50);
+    }
+
+    @Benchmark
+    public Optional<Todo> getTodoById() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return todoService.getTodoById(ids[user][ThreadLocalRandom.current().nextInt(todosPerUser)], email(user));
+    }
+
+    @Benchmark
+    public TodoStats getTodoStats() {
+        return todoService.getTodoStats(email(ThreadLocalRandom.current().nextInt(USERS)), 30);
+    }
+
+    @Benchmark
+    public boolean markAsCompleted() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return todoService.markAsCompleted(ids[user][ThreadLocalRandom.current().nextInt(todosPerUser)], email(user));
+    }
+
+    @Benchmark
+    public boolean createAndDeleteTodo() {
+        // paired so the store size stays constant across iterations
+        String email = email(ThreadLocalRandom.current().nextInt(USERS));
+        Todo created = todoService.createTodo(TodoServiceBenchmark.newTodo(0), email);
+        return todoService.deleteTodo(created.getId(), email);
+    }
+}
@@ -0,0 +1,95 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import tools.muthuishere.todo.BenchmarkContext;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoToolResponse;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The @McpTool methods called directly, i.e. tool cost without the MCP transport and JSON-RPC framing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoToolsBenchmark {
+
+    static final String EMAIL = "tools-bench@example.com";
+    static final int TODOS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Tools {
+        ConfigurableApplicationContext context;
+        TodoTools todoTools;
+        long[] ids;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BenchmarkContext.start();
+            todoTools = context.getBean(TodoTools.class);
+            BenchmarkContext.authenticate(EMAIL);
+            ids = new long[TODOS];
+            for (int i = 0; i < TODOS; i++) {
+                ids[i] = todoTools.makeTodo("Todo " + i, "Benchmark todo " + i, false).getTodo().getId();
+            }
+            SecurityContextHolder.clearContext();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        long randomId() {
+            return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        }
+    }
+
+    // Security context is thread-local, set it up on each benchmark thread
+    @State(Scope.Thread)
+    public static class Caller {
+        @Setup(Level.Trial)
+        public void setUp() {
+            BenchmarkContext.authenticate(EMAIL);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public List<Todo> fetchAllTodos(Tools tools, Caller caller) {
+        return tools.todoTools.fetchAllTodos(null, null);
+    }
+
+    @Benchmark
+    public Optional<Todo> fetchTodoById(Tools tools, Caller caller) {
+        return tools.todoTools.fetchTodoById(tools.randomId());
+    }
+
+    @Benchmark
+    public Optional<Todo> changeTodo(Tools tools, Caller caller) {
+        return tools.todoTools.changeTodo(tools.randomId(), "Changed", "Changed by benchmark", true);
+    }
+
+    @Benchmark
+    public boolean makeAndRemoveTodo(Tools tools, Caller caller) {
+        TodoToolResponse response = tools.todoTools.makeTodo("Temp", "Removed right away", false);
+        return tools.todoTools.removeTodo(response.getTodo().getId());
+    }
+}
@@ -0,0 +1,93 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.util.unit.DataSize;
+import tools.muthuishere.todo.todo.model.Todo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes to InMemoryTodoStore from 16 threads without a log, with a log that is never forced, and with
+ * group commit at different sync windows. Compare the score with the fsync latency of the disk: at a
+ * window of 0, each fsync still carries every write that queued up while the previous one ran.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class TodoWriteAheadLogBenchmark {
+
+    static final int USERS = 1000;
+
+    // none = no log, nosync = log without fsync, otherwise the sync window
+    @Param({"none", "nosync", "PT0S", "PT0.002S", "PT0.010S"})
+    String wal;
+
+    Path dir;
+    InMemoryTodoStore store;
+    long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("todo-wal");
+        boolean logged = !wal.equals("none");
+        store = new InMemoryTodoStore("", Duration.ZERO, logged ? dir.toString() : "", !wal.equals("nosync"),
+                logged && !wal.equals("nosync") ? Duration.parse(wal) : Duration.ZERO, DataSize.ofMegabytes(64));
+        store.start();
+        ids = new long[USERS];
+        for (int user = 0; user < USERS; user++) {
+            ids[user] = store.insert(newTodo(email(user), user)).value().getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.stop();
+        deleteRecursively(dir);
+    }
+
+    static String email(int user) {
+        return "user" + user + "@example.com";
+    }
+
+    static Todo newTodo(String email, int i) {
+        Todo todo = TodoServiceBenchmark.newTodo(i);
+        todo.setEmail(email);
+        todo.setCreatedAt(LocalDateTime.now());
+        todo.setUpdatedAt(todo.getCreatedAt());
+        return todo;
+    }
+
+    @Benchmark
+    public boolean setCompleted() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return store.setCompleted(email(user), ids[user], ThreadLocalRandom.current().nextBoolean(),
+                LocalDateTime.now()).value();
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
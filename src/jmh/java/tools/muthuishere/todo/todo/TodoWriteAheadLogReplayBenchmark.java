@@ -0,0 +1,87 @@
+package tools.muthuishere.todo.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+import tools.muthuishere.todo.todo.model.Todo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup of InMemoryTodoStore holding {@code todos} todos, either all in a snapshot (after a clean shutdown)
+ * or all in the write-ahead log (a crash before the first snapshot). Each iteration loads the same files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TodoWriteAheadLogReplayBenchmark {
+
+    static final int USERS = 10_000;
+    static final int BATCH = 100;
+
+    @Param({"1000000", "5000000"})
+    int todos;
+
+    @Param({"snapshot", "log"})
+    String source;
+
+    Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("todo-replay");
+        InMemoryTodoStore store = store();
+        store.start();
+        for (int i = 0; i < todos; i += BATCH) {
+            String email = TodoWriteAheadLogBenchmark.email((i / BATCH) % USERS);
+            List<Todo> batch = new ArrayList<>(BATCH);
+            for (int j = i; j < Math.min(todos, i + BATCH); j++) {
+                batch.add(TodoWriteAheadLogBenchmark.newTodo(email, j));
+            }
+            store.insertAll(batch);
+        }
+        if (source.equals("snapshot")) {
+            store.stop();
+        }
+        // else: left open like a crashed process, everything is in the log only
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        TodoWriteAheadLogBenchmark.deleteRecursively(dir);
+    }
+
+    InMemoryTodoStore store() {
+        // the log isn't forced while filling, replay reads it back through the page cache either way
+        return new InMemoryTodoStore("", Duration.ZERO, dir.toString(), false, Duration.ZERO,
+                DataSize.ofMegabytes(256));
+    }
+
+    @Benchmark
+    public long start() throws IOException {
+        // not stopped, so the files stay as they are for the next iteration
+        InMemoryTodoStore store = store();
+        store.start();
+        return store.getUserCount();
+    }
+}
@@ -2,8 +2,11 @@ package tools.muthuishere.todo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import tools.muthuishere.todo.config.NativeRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class TodoApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,16 @@
+package tools.muthuishere.todo.cluster;
+
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoChange;
+
+/**
+ * One committed change to a todo as it travels between nodes. todo holds the new state for CREATED and UPDATED.
+ * sequence orders all changes of the cluster, it is 0 until the bus has assigned it.
+ */
+public record ChangeNotification(long sequence, String origin, String email, TodoChange.Type type, Long todoId,
+                                 Todo todo) {
+
+    public ChangeNotification withSequence(long sequence) {
+        return new ChangeNotification(sequence, origin, email, type, todoId, todo);
+    }
+}
@@ -0,0 +1,59 @@
+package tools.muthuishere.todo.cluster;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Carries committed todo changes to every node serving the same users, so their caches and change feeds
+ * follow writes made anywhere. Selected with todo.cluster.bus: in-process (default) or jdbc.
+ */
+public interface ChangeNotificationBus {
+
+    /**
+     * Sends changes to every node, this one included. Call after the write is committed, or from inside
+     * {@link #inTransaction} together with the write.
+     */
+    void publish(List<ChangeNotification> changes);
+
+    /**
+     * Runs a store write together with the publish of its changes. A bus that keeps changes in the store's
+     * database runs both in one transaction, so a committed write always has its changes recorded. The default
+     * just runs it.
+     */
+    default <T> T inTransaction(Supplier<T> write) {
+        return write.get();
+    }
+
+    /**
+     * Listeners get each change once, on the publishing or polling thread. They must not block. A change can
+     * arrive after one with a higher sequence (concurrent publishers, late commits), see
+     * {@link #getContiguousSequence}.
+     */
+    void subscribe(Consumer<ChangeNotification> listener);
+
+    /**
+     * The user's changes after sequence, oldest first. Empty when some of them are no longer retained,
+     * the caller has to fetch the todos again instead.
+     */
+    Optional<List<ChangeNotification>> since(String email, long sequence);
+
+    /**
+     * Sequence of the latest change delivered to this node, older ones can still be missing.
+     */
+    long getLastSequence();
+
+    /**
+     * Low-watermark of delivery: every change up to this sequence has been delivered to this node's listeners
+     * (or given up on), changes above it may still arrive in any order.
+     */
+    long getContiguousSequence();
+
+    /**
+     * False when no other node shares this bus, so changes nobody here listens for can be left out.
+     */
+    boolean isClustered();
+
+    String getNodeId();
+}
@@ -0,0 +1,23 @@
+package tools.muthuishere.todo.cluster;
+
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.todo.TodoCache;
+import tools.muthuishere.todo.todo.TodoSearchIndex;
+
+/**
+ * Drops this node's cached todos and search index of a user when another node changed them.
+ * Changes made on this node are handled by TodoService as they happen.
+ */
+@Component
+public class ClusterCacheInvalidator {
+
+    public ClusterCacheInvalidator(ChangeNotificationBus bus, TodoCache todoCache, TodoSearchIndex searchIndex) {
+        String nodeId = bus.getNodeId();
+        bus.subscribe(change -> {
+            if (!nodeId.equals(change.origin())) {
+                todoCache.invalidate(change.email());
+                searchIndex.invalidate(change.email());
+            }
+        });
+    }
+}
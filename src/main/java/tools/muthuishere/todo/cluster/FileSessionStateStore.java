@@ -0,0 +1,120 @@
+package tools.muthuishere.todo.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Session state as one small file per session in a directory shared by the nodes (a volume mount, NFS).
+ * Files are written to a temporary name and moved into place, so readers never see half a file.
+ * The modification time is the last save: older than the TTL counts as gone, and expired files are swept
+ * at most every TTL/10 while saving.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.cluster.session-store", havingValue = "file")
+public class FileSessionStateStore implements SessionStateStore {
+
+    private final Path dir;
+    private final Duration ttl;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public FileSessionStateStore(@Value("${todo.cluster.session-store.dir}") Path dir,
+                                 @Value("${todo.cluster.session-ttl:PT1H}") Duration ttl) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<McpSessionState> find(String sessionId) {
+        Path file = file(sessionId);
+        try {
+            if (expired(file)) {
+                Files.deleteIfExists(file);
+                return Optional.empty();
+            }
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            return Optional.of(new McpSessionState(sessionId, lines.get(0), Long.parseLong(lines.get(1))));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unreadable session state {}, ignoring it", file, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void save(McpSessionState state) {
+        Path file = file(state.sessionId());
+        Path temp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            Files.writeString(temp, state.email() + "\n" + state.changeCursor() + "\n", StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save session state " + file, e);
+        }
+        sweepIfDue();
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        try {
+            Files.deleteIfExists(file(sessionId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sweepIfDue() {
+        long last = lastSweep.get();
+        long now = System.nanoTime();
+        if (now - last < ttl.toNanos() / 10 || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    if (expired(file)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // deleted by another node meanwhile
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Sweeping expired session state in {} failed", dir, e);
+        }
+    }
+
+    private boolean expired(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().isBefore(Instant.now().minus(ttl));
+    }
+
+    // session ids come from a request header, hash them into a safe file name
+    private Path file(String sessionId) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.UTF_8));
+            return dir.resolve(HexFormat.of().formatHex(hash) + ".session");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package tools.muthuishere.todo.cluster;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Session state on the heap of this node, for single node setups and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.cluster.session-store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionStateStore implements SessionStateStore {
+
+    private final Cache<String, McpSessionState> sessions;
+
+    public InMemorySessionStateStore(@Value("${todo.cluster.session-ttl:PT1H}") Duration ttl,
+                                     @Value("${todo.cluster.max-sessions:100000}") long maxSessions) {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Optional<McpSessionState> find(String sessionId) {
+        return Optional.ofNullable(sessions.getIfPresent(sessionId));
+    }
+
+    @Override
+    public void save(McpSessionState state) {
+        sessions.put(state.sessionId(), state);
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+}
@@ -0,0 +1,192 @@
+package tools.muthuishere.todo.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Change bus inside one JVM. Application contexts with the same todo.cluster.name form a cluster, which is
+ * how several servers started in one JVM (tests, the scaling harness) see each other's writes. Without a name
+ * the bus only serves its own context.
+ * <p>
+ * Sequences are handed out and changes retained under the topic lock, delivery then runs on the publishing
+ * thread outside of it, so concurrent publishers deliver concurrently and a member can see a change after one
+ * with a higher sequence. The contiguous sequence only moves past a change once it has reached every member.
+ * The last todo.cluster.replay-size changes are kept for {@link #since}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.cluster.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessChangeNotificationBus implements ChangeNotificationBus, DisposableBean {
+
+    private static final ConcurrentHashMap<String, Topic> TOPICS = new ConcurrentHashMap<>();
+
+    private final String nodeId;
+    private final String clusterName;
+    private final Topic topic;
+    private final List<Consumer<ChangeNotification>> listeners = new CopyOnWriteArrayList<>();
+
+    public InProcessChangeNotificationBus(@Value("${todo.cluster.name:}") String clusterName,
+                                          @Value("${todo.cluster.node-id:}") String nodeId,
+                                          @Value("${todo.cluster.replay-size:10000}") int replaySize) {
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        if (clusterName.isBlank()) {
+            this.clusterName = null;
+            this.topic = new Topic(replaySize);
+            topic.members.add(this);
+        } else {
+            this.clusterName = clusterName;
+            this.topic = TOPICS.compute(clusterName, (name, existing) -> {
+                Topic joined = existing == null ? new Topic(replaySize) : existing;
+                joined.members.add(this);
+                return joined;
+            });
+        }
+    }
+
+    @Override
+    public void publish(List<ChangeNotification> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<ChangeNotification> sequenced = new ArrayList<>(changes.size());
+        topic.lock.lock();
+        try {
+            for (ChangeNotification change : changes) {
+                ChangeNotification next = change.withSequence(++topic.sequence);
+                if (topic.retained.size() == topic.capacity) {
+                    topic.retained.removeFirst();
+                }
+                topic.retained.addLast(next);
+                sequenced.add(next);
+            }
+        } finally {
+            topic.lock.unlock();
+        }
+        try {
+            for (InProcessChangeNotificationBus member : topic.members) {
+                member.dispatch(sequenced);
+            }
+        } finally {
+            topic.delivered(sequenced.getFirst().sequence(), sequenced.getLast().sequence());
+        }
+    }
+
+    private void dispatch(List<ChangeNotification> changes) {
+        for (ChangeNotification change : changes) {
+            for (Consumer<ChangeNotification> listener : listeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    log.warn("Change listener failed on node {}", nodeId, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ChangeNotification> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public Optional<List<ChangeNotification>> since(String email, long sequence) {
+        topic.lock.lock();
+        try {
+            if (sequence >= topic.sequence) {
+                return Optional.of(List.of());
+            }
+            ChangeNotification oldest = topic.retained.peekFirst();
+            if (oldest == null || oldest.sequence() > sequence + 1) {
+                return Optional.empty();
+            }
+            List<ChangeNotification> changes = new ArrayList<>();
+            for (ChangeNotification change : topic.retained) {
+                if (change.sequence() > sequence && change.email().equals(email)) {
+                    changes.add(change);
+                }
+            }
+            return Optional.of(changes);
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    @Override
+    public long getLastSequence() {
+        return topic.sequence;
+    }
+
+    @Override
+    public long getContiguousSequence() {
+        return topic.contiguous;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return clusterName != null;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void destroy() {
+        if (clusterName != null) {
+            TOPICS.computeIfPresent(clusterName, (name, existing) -> {
+                existing.members.remove(this);
+                return existing.members.isEmpty() ? null : existing;
+            });
+        }
+    }
+
+    private static final class Topic {
+        final ReentrantLock lock = new ReentrantLock();
+        final List<InProcessChangeNotificationBus> members = new CopyOnWriteArrayList<>();
+        final int capacity;
+        // guarded by lock
+        final ArrayDeque<ChangeNotification> retained;
+        // first -> last sequence of publishes delivered ahead of an earlier one still delivering, guarded by lock
+        final TreeMap<Long, Long> deliveredAhead = new TreeMap<>();
+        // written under lock, read without, so subscribers can read them while holding their own locks
+        volatile long sequence;
+        volatile long contiguous;
+
+        Topic(int capacity) {
+            this.capacity = Math.max(1, capacity);
+            this.retained = new ArrayDeque<>(Math.min(this.capacity, 1024));
+        }
+
+        void delivered(long first, long last) {
+            lock.lock();
+            try {
+                if (first != contiguous + 1) {
+                    deliveredAhead.put(first, last);
+                    return;
+                }
+                long upTo = last;
+                for (Long next = deliveredAhead.remove(upTo + 1); next != null; next = deliveredAhead.remove(upTo + 1)) {
+                    upTo = next;
+                }
+                contiguous = upTo;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package tools.muthuishere.todo.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoChange;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Change bus through the database the nodes already share: changes are rows of todo_change_notification
+ * (see V2 migration), the identity column is the cluster-wide sequence, and every node polls for new rows.
+ * A node sees writes of the others after at most todo.cluster.poll-interval.
+ * <p>
+ * Changes are inserted in the transaction of the store write they belong to (see {@link #inTransaction}),
+ * so a todo write commits or rolls back together with its notification, and a node going down between the
+ * two can't leave a committed write the other nodes never hear of.
+ * <p>
+ * Identities are handed out before commit, so a row can become visible after one with a higher id. Ids
+ * skipped by a poll are kept as gaps and asked for again until todo.cluster.gap-timeout, then given up; the
+ * contiguous sequence stays below the oldest open gap. The insert is the last statement before the commit,
+ * so a gap is either filled within moments or belongs to a rolled back write and never will be, the timeout
+ * only needs to cover a commit. Rows older than todo.cluster.retention are deleted, {@link #since} can't
+ * reach further back.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.cluster.bus", havingValue = "jdbc")
+public class JdbcChangeNotificationBus implements ChangeNotificationBus, InitializingBean, DisposableBean {
+
+    private static final int POLL_LIMIT = 1000;
+    private static final int MAX_GAPS = 10_000;
+    private static final String COLUMNS = "id, origin, email, type, todo_id, todo";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final long pollIntervalNanos;
+    private final long gapTimeoutNanos;
+    private final Duration retention;
+    private final List<Consumer<ChangeNotification>> listeners = new CopyOnWriteArrayList<>();
+    private final RowMapper<ChangeNotification> rowMapper = (rs, row) -> new ChangeNotification(
+            rs.getLong("id"), rs.getString("origin"), rs.getString("email"),
+            TodoChange.Type.valueOf(rs.getString("type")), rs.getObject("todo_id", Long.class),
+            readTodo(rs.getString("todo")));
+
+    // only touched by the poller thread
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private long lastCleanup = System.nanoTime();
+    private volatile long lastSequence;
+    private volatile long contiguousSequence;
+    private volatile boolean running = true;
+    private Thread poller;
+
+    public JdbcChangeNotificationBus(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${todo.cluster.node-id:}") String nodeId,
+                                     @Value("${todo.cluster.poll-interval:PT0.1S}") Duration pollInterval,
+                                     @Value("${todo.cluster.gap-timeout:PT1S}") Duration gapTimeout,
+                                     @Value("${todo.cluster.retention:PT10M}") Duration retention) {
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.retention = retention;
+        // changes from before this node started are of no interest, caches start empty
+        Long max = jdbc.queryForObject("select max(id) from todo_change_notification", Long.class);
+        this.lastSequence = max == null ? 0 : max;
+        this.contiguousSequence = lastSequence;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        poller = Thread.ofPlatform().name("todo-changes-poller").daemon().start(this::pollLoop);
+    }
+
+    @Override
+    public void publish(List<ChangeNotification> changes) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbc.batchUpdate("insert into todo_change_notification (origin, email, type, todo_id, todo, created_at) "
+                        + "values (?, ?, ?, ?, ?, ?)", changes, changes.size(),
+                (ps, change) -> {
+                    ps.setString(1, nodeId);
+                    ps.setString(2, change.email());
+                    ps.setString(3, change.type().name());
+                    ps.setObject(4, change.todoId());
+                    ps.setString(5, writeTodo(change.todo()));
+                    ps.setTimestamp(6, now);
+                });
+    }
+
+    // the JDBC insert joins the transaction the store's write runs in, they share the DataSource
+    @Override
+    public <T> T inTransaction(Supplier<T> write) {
+        return transactions.execute(status -> write.get());
+    }
+
+    @Override
+    public void subscribe(Consumer<ChangeNotification> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public Optional<List<ChangeNotification>> since(String email, long sequence) {
+        Long oldest = jdbc.queryForObject("select min(id) from todo_change_notification", Long.class);
+        if (oldest == null ? sequence < lastSequence : oldest > sequence + 1) {
+            return Optional.empty();
+        }
+        // also rows the poller hasn't reached yet, the caller skips the ones it gets twice
+        return Optional.of(jdbc.query("select " + COLUMNS + " from todo_change_notification "
+                + "where email = ? and id > ? order by id", rowMapper, email, sequence));
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public long getContiguousSequence() {
+        return contiguousSequence;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                poll();
+                if (System.nanoTime() - lastCleanup > retention.toNanos() / 10) {
+                    lastCleanup = System.nanoTime();
+                    cleanup();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Polling todo changes failed", e);
+            }
+            LockSupport.parkNanos(pollIntervalNanos);
+        }
+    }
+
+    // package-private so tests can drive the bus without the poller thread
+    void poll() {
+        long now = System.nanoTime();
+        gaps.values().removeIf(deadline -> deadline < now);
+        // late rows are asked for by id, however many rows were delivered after them
+        List<Long> missing = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < missing.size(); from += POLL_LIMIT) {
+            List<Long> ids = missing.subList(from, Math.min(missing.size(), from + POLL_LIMIT));
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            for (ChangeNotification change : jdbc.query("select " + COLUMNS + " from todo_change_notification "
+                    + "where id in (" + placeholders + ") order by id", rowMapper, ids.toArray())) {
+                gaps.remove(change.sequence());
+                dispatch(change);
+            }
+        }
+        long last = lastSequence;
+        for (ChangeNotification change : jdbc.query("select " + COLUMNS + " from todo_change_notification "
+                + "where id > ? order by id limit " + POLL_LIMIT, rowMapper, last)) {
+            long id = change.sequence();
+            for (long gap = last + 1; gap < id && gaps.size() < MAX_GAPS; gap++) {
+                gaps.put(gap, now + gapTimeoutNanos);
+            }
+            last = id;
+            dispatch(change);
+        }
+        lastSequence = last;
+        contiguousSequence = gaps.isEmpty() ? last : gaps.firstKey() - 1;
+    }
+
+    // by id, so whatever is left has no older rows deleted behind it and since can trust min(id)
+    void cleanup() {
+        Long expired = jdbc.queryForObject("select max(id) from todo_change_notification where created_at < ?",
+                Long.class, Timestamp.from(Instant.now().minus(retention)));
+        if (expired != null) {
+            jdbc.update("delete from todo_change_notification where id <= ?", expired);
+        }
+    }
+
+    private void dispatch(ChangeNotification change) {
+        for (Consumer<ChangeNotification> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                log.warn("Change listener failed", e);
+            }
+        }
+    }
+
+    private String writeTodo(Todo todo) {
+        if (todo == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(todo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize todo " + todo.getId(), e);
+        }
+    }
+
+    private Todo readTodo(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Todo.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read todo change", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (poller != null) {
+            LockSupport.unpark(poller);
+            poller.join(Duration.ofSeconds(5));
+        }
+    }
+}
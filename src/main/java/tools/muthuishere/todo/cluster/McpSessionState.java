@@ -0,0 +1,8 @@
+package tools.muthuishere.todo.cluster;
+
+/**
+ * What the server remembers about an MCP session between requests: whose it is and how far its watch-todos
+ * calls have read the change feed.
+ */
+public record McpSessionState(String sessionId, String email, long changeCursor) {
+}
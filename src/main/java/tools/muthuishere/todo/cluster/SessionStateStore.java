@@ -0,0 +1,17 @@
+package tools.muthuishere.todo.cluster;
+
+import java.util.Optional;
+
+/**
+ * Per-session state kept outside the node that served the last request, so the next one can be served by any
+ * node. Selected with todo.cluster.session-store: memory (default, one node) or file (a directory the nodes share).
+ * Entries expire todo.cluster.session-ttl after they were last saved.
+ */
+public interface SessionStateStore {
+
+    Optional<McpSessionState> find(String sessionId);
+
+    void save(McpSessionState state);
+
+    void delete(String sessionId);
+}
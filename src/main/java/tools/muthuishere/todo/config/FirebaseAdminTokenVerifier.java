@@ -0,0 +1,36 @@
+package tools.muthuishere.todo.config;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.Map;
+
+/**
+ * Verifies Firebase ID tokens with the Firebase Admin SDK.
+ * The Firebase app is initialized on the first token, see {@link FirebaseConfig}.
+ */
+public class FirebaseAdminTokenVerifier implements FirebaseTokenVerifier {
+
+    private final Runnable appInitializer;
+
+    public FirebaseAdminTokenVerifier(Runnable appInitializer) {
+        this.appInitializer = appInitializer;
+    }
+
+    @Override
+    public Map<String, Object> verify(String idToken) throws JwtException {
+        try {
+            appInitializer.run();
+        } catch (RuntimeException e) {
+            throw new JwtException("Firebase Admin SDK is not available: " + e.getMessage(), e);
+        }
+        try {
+            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
+            return decodedToken.getClaims();
+        } catch (FirebaseAuthException e) {
+            throw new JwtException("Firebase token validation failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -3,8 +3,9 @@ package tools.muthuishere.todo.config;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
-import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 
 
@@ -12,7 +13,11 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+// Only needed when tokens are verified with the Admin SDK, local-jwks works without credentials
+// Initialized on the first token instead of at boot: loading credentials is slow and stdio never verifies tokens
+@Slf4j
 @Configuration
+@ConditionalOnProperty(name = "firebase.jwt.verifier", havingValue = "admin-sdk", matchIfMissing = true)
 public class FirebaseConfig {
 
     @Value("${firebase.service-account-key:}")
@@ -21,8 +26,21 @@ public class FirebaseConfig {
     @Value("${firebase.project-id:}")
     private String projectId;
 
-    @PostConstruct
+    private volatile boolean initialized;
+
     public void initialize() {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!initialized) {
+                initializeApp();
+                initialized = true;
+            }
+        }
+    }
+
+    private void initializeApp() {
         try {
             if (FirebaseApp.getApps().isEmpty()) {
                 FirebaseOptions.Builder optionsBuilder = FirebaseOptions.builder();
@@ -42,11 +60,11 @@ public class FirebaseConfig {
 
                 
                 FirebaseApp.initializeApp(optionsBuilder.build());
-                System.out.println("Firebase Admin SDK initialized successfully");
+                log.info("Firebase Admin SDK initialized");
             }
         } catch (IOException e) {
-            System.err.println("Failed to initialize Firebase Admin SDK: " + e.getMessage());
+            log.error("Failed to initialize Firebase Admin SDK", e);
            throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+}
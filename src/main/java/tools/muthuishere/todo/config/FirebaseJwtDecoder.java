@@ -1,119 +1,128 @@
 package tools.muthuishere.todo.config;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
-import com.nimbusds.jwt.JWTClaimsSet;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
 
+import java.text.ParseException;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Custom JWT decoder for Firebase JWT tokens.
- * This validates Firebase ID tokens by checking the issuer and basic claims.
+ * This validates Firebase ID tokens through a {@link FirebaseTokenVerifier}.
  * Also handles OAuth2 access tokens from our auth server by extracting Firebase tokens.
  */
+@Slf4j
 public class FirebaseJwtDecoder implements JwtDecoder {
 
+    // Firebase ID tokens are always RS256 JWTs, share one header map across all decoded tokens
+    private static final Map<String, Object> HEADERS = Map.of("alg", "RS256", "typ", "JWT");
+
     @Value("${mcp.authorization.server.url}")
     private String authServerUrl;
 
-    @Override
-    public Jwt decode(String token) throws JwtException {
+    private final FirebaseTokenVerifier tokenVerifier;
+    private final VerifiedTokenCache tokenCache;
 
-        System.out.println("Decoding token: " + token);
-        // Extract Firebase token from JWT claims
-        String firebaseToken = extractFirebaseToken(token);
-        
-        // Use the Firebase token for validation
-        try {
-            // Use Firebase Admin SDK to verify the token
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(firebaseToken);
-            Map<String, Object> claims = new HashMap<>();
-            decodedToken.getClaims().forEach((key,obj)->{
-                claims.put(key, obj.toString());
-            });
-
-            // Add email if present
-            if (decodedToken.getEmail() != null) {
-                claims.put("email", decodedToken.getEmail());
-                claims.put("email_verified", decodedToken.isEmailVerified());
-            }
+    public FirebaseJwtDecoder(FirebaseTokenVerifier tokenVerifier, VerifiedTokenCache tokenCache) {
+        this.tokenVerifier = tokenVerifier;
+        this.tokenCache = tokenCache;
+    }
 
-            // Add name if present
-            if (decodedToken.getName() != null) {
-                claims.put("name", decodedToken.getName());
-            }
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
 
-            // Add picture if present
-            if (decodedToken.getPicture() != null) {
-                claims.put("picture", decodedToken.getPicture());
-            }
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        // MCP clients resend the same bearer token on every call, skip re-verification
+        Jwt cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
 
-            // Add custom claims
-            claims.put("firebase", decodedToken.getClaims());
+        Jwt jwt = verify(token);
+        tokenCache.put(token, jwt);
+        return jwt;
+    }
 
-            // Create header map
-            Map<String, Object> headers = new HashMap<>();
-            headers.put("alg", "RS256");
-            headers.put("typ", "JWT");
+    private Jwt verify(String token) throws JwtException {
+        if (log.isDebugEnabled()) {
+            log.debug("Decoding token {}", redact(token));
+        }
 
+        // Parse the outer token once, it is either our auth server's access token or the Firebase token itself
+        JWT outer = parse(token);
+        String firebaseToken = extractFirebaseToken(outer);
 
-            // Claims map contains standard JWT fields too
-            long iat = ((Number) decodedToken.getClaims().get("iat")).longValue(); // issued-at (seconds)
-            long exp = ((Number) decodedToken.getClaims().get("exp")).longValue(); // expires-at (seconds)
+        try {
+            Map<String, Object> verifiedClaims = firebaseToken == null
+                    ? tokenVerifier.verify(token, outer)
+                    : tokenVerifier.verify(firebaseToken);
 
-// Convert to Java Instant / ZonedDateTime
-            Instant issuedAt = Instant.ofEpochSecond(iat);
-            Instant expiresAt = Instant.ofEpochSecond(exp);
+            // Verified claims already carry email, email_verified, name and picture,
+            // hand them over as-is and keep the full set under "firebase"
+            Map<String, Object> claims = new HashMap<>(verifiedClaims.size() + 1);
+            claims.putAll(verifiedClaims);
+            claims.put("firebase", verifiedClaims);
 
+            Instant issuedAt = Instant.ofEpochSecond(((Number) verifiedClaims.get("iat")).longValue());
+            Instant expiresAt = Instant.ofEpochSecond(((Number) verifiedClaims.get("exp")).longValue());
 
             return new Jwt(
-                firebaseToken, // Use the Firebase token as the token value
+                firebaseToken == null ? token : firebaseToken, // Use the Firebase token as the token value
                 issuedAt,
                 expiresAt,
-                headers,
+                HEADERS,
                 claims
             );
 
-        } catch (FirebaseAuthException e) {
-            throw new JwtException("Firebase token validation failed: " + e.getMessage(), e);
+        } catch (JwtException e) {
+            throw e;
         } catch (Exception e) {
             throw new JwtException("Token processing error: " + e.getMessage(), e);
         }
     }
 
+    private static JWT parse(String token) {
+        try {
+            return JWTParser.parse(token);
+        } catch (ParseException e) {
+            log.debug("JWT parsing failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
-     * Extracts Firebase token from JWT claims using Nimbus JWT.
-     * No verification, just decode and extract firebase_token claim.
+     * Extracts the firebase_token claim from an access token issued by our auth server.
+     * No verification here. Returns null when the token is not a wrapper, i.e. it is the Firebase token itself.
      */
-    private String extractFirebaseToken(String token) {
+    private static String extractFirebaseToken(JWT jwt) {
+        if (jwt == null) {
+            return null;
+        }
         try {
-            // Parse JWT using Nimbus (no verification)
-            JWT jwt = JWTParser.parse(token);
-            JWTClaimsSet claims = jwt.getJWTClaimsSet();
-            
-            // Extract firebase_token claim and return it
-            String firebaseToken = claims.getStringClaim("firebase_token");
+            String firebaseToken = jwt.getJWTClaimsSet().getStringClaim("firebase_token");
             if (firebaseToken != null && !firebaseToken.isEmpty()) {
-                System.out.println("Extracted Firebase token from JWT claims");
+                log.debug("Extracted Firebase token from JWT claims");
                 return firebaseToken;
             }
-            
-        } catch (Exception e) {
-            System.out.println("JWT parsing failed: " + e.getMessage());
+        } catch (ParseException e) {
+            log.debug("JWT claims parsing failed: {}", e.getMessage());
         }
-        
-        // If extraction fails or no firebase_token claim, return original token
-        return token;
+        return null;
     }
 
-
-}
\ No newline at end of file
+    private static String redact(String token) {
+        if (token == null || token.length() <= 16) {
+            return "[redacted]";
+        }
+        return token.substring(0, 8) + "...[redacted " + token.length() + " chars]";
+    }
+}
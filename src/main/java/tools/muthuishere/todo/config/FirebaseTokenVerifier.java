@@ -0,0 +1,22 @@
+package tools.muthuishere.todo.config;
+
+import com.nimbusds.jwt.JWT;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.Map;
+
+/**
+ * Verifies a Firebase ID token and returns its claims.
+ * Implementations return iat/exp as epoch seconds, the same shape the Firebase Admin SDK uses.
+ */
+public interface FirebaseTokenVerifier {
+
+    Map<String, Object> verify(String idToken) throws JwtException;
+
+    /**
+     * Same as {@link #verify(String)}, reusing an already parsed token when the implementation can.
+     */
+    default Map<String, Object> verify(String idToken, JWT parsed) throws JwtException {
+        return verify(idToken);
+    }
+}
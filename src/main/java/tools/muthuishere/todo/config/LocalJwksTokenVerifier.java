@@ -0,0 +1,213 @@
+package tools.muthuishere.todo.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies Firebase ID tokens offline against an in-memory JWKS.
+ * Signatures are checked with Nimbus (RS256 only), issuer/audience/expiry are checked here.
+ * The key set is swapped atomically on refresh, so lookups by kid never lock
+ * and a request never waits for a network fetch.
+ */
+@Slf4j
+public class LocalJwksTokenVerifier implements FirebaseTokenVerifier, AutoCloseable {
+
+    public static final String FIREBASE_JWKS_URL =
+            "https://www.googleapis.com/service_accounts/v1/jwk/securetoken@system.gserviceaccount.com";
+
+    private static final String FIREBASE_ISSUER_PREFIX = "https://securetoken.google.com/";
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    @FunctionalInterface
+    public interface JwksLoader {
+        JWKSet load() throws IOException, ParseException;
+    }
+
+    private final String projectId;
+    private final String issuer;
+    private final JwksLoader loader;
+    private final Duration refreshInterval;
+    private final Clock clock;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Map<String, RSASSAVerifier> verifiers = Map.of();
+    private ScheduledExecutorService scheduler;
+
+    public LocalJwksTokenVerifier(String projectId, JwksLoader loader, Duration refreshInterval, Clock clock) {
+        this.projectId = projectId;
+        this.issuer = FIREBASE_ISSUER_PREFIX + projectId;
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+    }
+
+    public static LocalJwksTokenVerifier fromUrl(String projectId, URL jwksUrl, Duration refreshInterval) {
+        return new LocalJwksTokenVerifier(projectId,
+                () -> JWKSet.load(jwksUrl, 5_000, 5_000, 512 * 1024),
+                refreshInterval, Clock.systemUTC());
+    }
+
+    public static LocalJwksTokenVerifier fromFile(String projectId, Path jwksFile, Duration refreshInterval) {
+        return new LocalJwksTokenVerifier(projectId, () -> JWKSet.load(jwksFile.toFile()),
+                refreshInterval, Clock.systemUTC());
+    }
+
+    /**
+     * Fixed key set with no background refresh, handy for tests and benchmarks.
+     */
+    public static LocalJwksTokenVerifier fromJwkSet(String projectId, JWKSet jwkSet, Clock clock) {
+        LocalJwksTokenVerifier verifier = new LocalJwksTokenVerifier(projectId, () -> jwkSet, Duration.ZERO, clock);
+        verifier.refresh();
+        return verifier;
+    }
+
+    /**
+     * Loads the key set once and schedules background refreshes.
+     * A failed initial load is logged, requests fail with unknown kid until a refresh succeeds.
+     */
+    public synchronized void start() {
+        refresh();
+        if (scheduler == null && !refreshInterval.isZero()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = refreshInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reloads the key set and swaps it in. Returns false when loading failed and the old keys were kept.
+     */
+    public boolean refresh() {
+        try {
+            JWKSet jwkSet = loader.load();
+            Map<String, RSASSAVerifier> loaded = new HashMap<>();
+            for (JWK jwk : jwkSet.getKeys()) {
+                if (jwk instanceof RSAKey rsaKey && jwk.getKeyID() != null) {
+                    loaded.put(jwk.getKeyID(), new RSASSAVerifier(rsaKey));
+                }
+            }
+            verifiers = Map.copyOf(loaded);
+            log.debug("Loaded {} JWKS signing keys", loaded.size());
+            return true;
+        } catch (IOException | ParseException | JOSEException e) {
+            log.warn("Failed to refresh JWKS, keeping {} cached keys: {}", verifiers.size(), e.getMessage());
+            return false;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    public int keyCount() {
+        return verifiers.size();
+    }
+
+    @Override
+    public Map<String, Object> verify(String idToken) throws JwtException {
+        SignedJWT jwt;
+        try {
+            jwt = SignedJWT.parse(idToken);
+        } catch (ParseException e) {
+            throw new JwtException("Malformed Firebase ID token: " + e.getMessage(), e);
+        }
+        return verify(jwt);
+    }
+
+    @Override
+    public Map<String, Object> verify(String idToken, JWT parsed) throws JwtException {
+        return parsed instanceof SignedJWT signed ? verify(signed) : verify(idToken);
+    }
+
+    public Map<String, Object> verify(SignedJWT jwt) throws JwtException {
+        JWSHeader header = jwt.getHeader();
+        if (!JWSAlgorithm.RS256.equals(header.getAlgorithm())) {
+            throw new JwtException("Unsupported token algorithm: " + header.getAlgorithm());
+        }
+
+        RSASSAVerifier verifier = header.getKeyID() == null ? null : verifiers.get(header.getKeyID());
+        if (verifier == null) {
+            // Keys rotate, fetch the new set in the background instead of blocking this request
+            requestRefresh();
+            throw new JwtException("Unknown token signing key: " + header.getKeyID());
+        }
+
+        try {
+            if (!jwt.verify(verifier)) {
+                throw new JwtException("Invalid token signature");
+            }
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            validateClaims(claims);
+            return claims.toJSONObject();
+        } catch (JOSEException | ParseException e) {
+            throw new JwtException("Token verification failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void validateClaims(JWTClaimsSet claims) {
+        Instant now = clock.instant();
+
+        if (!issuer.equals(claims.getIssuer())) {
+            throw new JwtException("Invalid token issuer: " + claims.getIssuer());
+        }
+        List<String> audience = claims.getAudience();
+        if (audience == null || !audience.contains(projectId)) {
+            throw new JwtException("Invalid token audience: " + audience);
+        }
+        Date expiresAt = claims.getExpirationTime();
+        if (expiresAt == null || !now.minus(CLOCK_SKEW).isBefore(expiresAt.toInstant())) {
+            throw new JwtException("Token has expired");
+        }
+        Date issuedAt = claims.getIssueTime();
+        if (issuedAt == null || issuedAt.toInstant().isAfter(now.plus(CLOCK_SKEW))) {
+            throw new JwtException("Token issued in the future");
+        }
+        String subject = claims.getSubject();
+        if (subject == null || subject.isEmpty()) {
+            throw new JwtException("Token has no subject");
+        }
+    }
+
+    private void requestRefresh() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && refreshing.compareAndSet(false, true)) {
+            current.execute(this::refresh);
+        }
+    }
+}
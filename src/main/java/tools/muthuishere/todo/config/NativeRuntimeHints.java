@@ -0,0 +1,50 @@
+package tools.muthuishere.todo.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import tools.muthuishere.todo.todo.TodoChangeTools;
+import tools.muthuishere.todo.todo.TodoSamplingTools;
+import tools.muthuishere.todo.todo.TodoTools;
+import tools.muthuishere.todo.todo.model.*;
+
+/**
+ * Reflection and resource hints for the GraalVM native image that Spring AOT can't infer on its own.
+ * <ul>
+ *     <li>@McpTool methods are found and invoked reflectively by the MCP annotation scanner</li>
+ *     <li>tool parameters and results are bound by Jackson, including the Lombok generated accessors</li>
+ *     <li>Jackson instantiates the serializer named in TodoList's @JsonSerialize</li>
+ *     <li>JPQL constructor expressions instantiate the projection classes</li>
+ *     <li>Flyway reads the migrations from the classpath</li>
+ * </ul>
+ * H2 and Nimbus come with reachability metadata from the GraalVM metadata repository.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] TOOL_CLASSES = {
+            TodoTools.class, TodoSamplingTools.class, TodoChangeTools.class
+    };
+
+    private static final Class<?>[] MODEL_CLASSES = {
+            Todo.class, TodoPage.class, TodoSummary.class, TodoDraft.class, TodoBatchResult.class,
+            TodoToolResponse.class, TodoSearchHit.class, TodoStats.class, TodoDailyCount.class,
+            TodoCompletionCount.class, TodoChange.class, TodoChange.Type.class, TodoChangeBatch.class
+    };
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> toolClass : TOOL_CLASSES) {
+            hints.reflection().registerType(toolClass,
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        bindingRegistrar.registerReflectionHints(hints.reflection(), MODEL_CLASSES);
+        hints.reflection().registerType(TodoList.Serializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        for (Class<?> modelClass : MODEL_CLASSES) {
+            hints.reflection().registerType(modelClass, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("db/migration/*.sql");
+    }
+}
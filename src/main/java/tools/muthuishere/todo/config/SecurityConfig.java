@@ -1,6 +1,8 @@
 package tools.muthuishere.todo.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -14,8 +16,13 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import tools.muthuishere.todo.security.McpAuthenticationConverter;
 import tools.muthuishere.todo.security.McpAuthenticationEntryPoint;
 
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
@@ -25,6 +32,27 @@ public class SecurityConfig {
     @Autowired
     private McpAuthenticationEntryPoint mcpAuthenticationEntryPoint;
 
+    @Autowired
+    private ObjectProvider<FirebaseConfig> firebaseConfig;
+
+    @Value("${firebase.jwt.cache.max-size:10000}")
+    private int tokenCacheMaxSize;
+
+    @Value("${firebase.jwt.verifier:admin-sdk}")
+    private String tokenVerifierType;
+
+    @Value("${firebase.project-id:}")
+    private String projectId;
+
+    @Value("${firebase.jwt.jwks-url:" + LocalJwksTokenVerifier.FIREBASE_JWKS_URL + "}")
+    private String jwksUrl;
+
+    @Value("${firebase.jwt.jwks-file:}")
+    private String jwksFile;
+
+    @Value("${firebase.jwt.jwks-refresh-interval:PT1H}")
+    private Duration jwksRefreshInterval;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         return http
@@ -34,21 +62,40 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints - OAuth metadata and health
                         .requestMatchers("/", "/api/health", "/.well-known/**", "/login/oauth").permitAll()
+                        // Probes and Prometheus scraping
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                         // All other endpoints require authentication
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
-                        .jwt(jwt -> jwt.decoder(jwtDecoder()))
+                        .jwt(jwt -> jwt
+                                .decoder(jwtDecoder())
+                                // resolves email/uid once per request for MCPContextHolder
+                                .jwtAuthenticationConverter(new McpAuthenticationConverter()))
                         .authenticationEntryPoint(mcpAuthenticationEntryPoint)
                 )
                 .build();
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder() throws MalformedURLException {
         // Firebase JWT tokens are signed with RS256
         // We'll create a custom decoder that validates Firebase tokens
-        return new FirebaseJwtDecoder();
+        // Verified tokens are cached until their exp claim, set max-size to 0 to disable
+        return new FirebaseJwtDecoder(firebaseTokenVerifier(), new VerifiedTokenCache(tokenCacheMaxSize));
+    }
+
+    @Bean
+    public FirebaseTokenVerifier firebaseTokenVerifier() throws MalformedURLException {
+        if (!"local-jwks".equals(tokenVerifierType)) {
+            return new FirebaseAdminTokenVerifier(() -> firebaseConfig.getObject().initialize());
+        }
+        // Offline RS256 verification, keys come from a file (air-gapped) or the Google JWKS endpoint
+        LocalJwksTokenVerifier verifier = jwksFile.isEmpty()
+                ? LocalJwksTokenVerifier.fromUrl(projectId, URI.create(jwksUrl).toURL(), jwksRefreshInterval)
+                : LocalJwksTokenVerifier.fromFile(projectId, Path.of(jwksFile), jwksRefreshInterval);
+        verifier.start();
+        return verifier;
     }
 
     @Bean
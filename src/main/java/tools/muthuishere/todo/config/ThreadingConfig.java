@@ -0,0 +1,19 @@
+package tools.muthuishere.todo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+@Configuration
+public class ThreadingConfig {
+
+    /**
+     * Carries the caller's SecurityContext onto the application task executor (virtual or platform threads),
+     * so MCPContextHolder still finds the user in async MVC work and @Async tasks.
+     */
+    @Bean
+    public TaskDecorator securityContextTaskDecorator() {
+        return runnable -> new DelegatingSecurityContextRunnable(runnable);
+    }
+}
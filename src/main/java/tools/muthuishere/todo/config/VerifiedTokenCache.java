@@ -0,0 +1,121 @@
+package tools.muthuishere.todo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of already verified tokens.
+ * Keys are SHA-256 hashes of the raw bearer token, so the token itself is never kept around.
+ * Each entry expires when the token's exp claim passes, the least valuable entries go when the cache is full.
+ */
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final Clock clock;
+    private final Cache<String, Jwt> entries;
+
+    public VerifiedTokenCache(int maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    public VerifiedTokenCache(int maxSize, Clock clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxSize))
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                        return untilExpiry(jwt).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return untilExpiry(jwt).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // the cache runs on the clock's time, so expiry and the exp claim agree
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached Jwt for this token, or null when absent or expired.
+     */
+    public Jwt get(String token) {
+        return entries.getIfPresent(hash(token));
+    }
+
+    public void put(String token, Jwt jwt) {
+        if (maxSize <= 0 || untilExpiry(jwt).isZero()) {
+            return;
+        }
+        entries.put(hash(token), jwt);
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public int size() {
+        return (int) entries.estimatedSize();
+    }
+
+    public long getHits() {
+        return entries.stats().hitCount();
+    }
+
+    public long getMisses() {
+        return entries.stats().missCount();
+    }
+
+    public long getEvictions() {
+        return entries.stats().evictionCount();
+    }
+
+    // package-private for tests
+    Set<String> keys() {
+        return Set.copyOf(entries.asMap().keySet());
+    }
+
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    private Duration untilExpiry(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return Duration.ZERO;
+        }
+        Duration left = Duration.between(clock.instant(), expiresAt);
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package tools.muthuishere.todo.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * When spring.threads.virtual.enabled is set, also moves Reactor's boundedElastic scheduler
+ * (used by the MCP SDK for blocking sync handlers) onto virtual threads.
+ * Reactor reads this system property once, so it has to be set before the context starts.
+ */
+public class VirtualThreadsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String REACTOR_VIRTUAL_THREADS = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (virtualThreads && System.getProperty(REACTOR_VIRTUAL_THREADS) == null) {
+            System.setProperty(REACTOR_VIRTUAL_THREADS, "true");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package tools.muthuishere.todo.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON document that never changes while the server runs, rendered once to plain and gzipped bytes.
+ * Responses carry a strong ETag per encoding and Cache-Control; a matching If-None-Match gets a bodiless 304.
+ */
+final class DiscoveryDocument {
+
+    private final byte[] json;
+    private final byte[] gzipped;
+    private final String etag;
+    private final String gzipEtag;
+    private final CacheControl cacheControl;
+
+    DiscoveryDocument(ObjectMapper objectMapper, Map<String, Object> document, CacheControl cacheControl) {
+        try {
+            this.json = objectMapper.writeValueAsBytes(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Discovery document can't be serialized", e);
+        }
+        this.gzipped = gzip(json);
+        String hash = hash(json);
+        this.etag = "\"" + hash + "\"";
+        // gzip bytes are a different representation, a strong ETag must not be shared with the plain one
+        this.gzipEtag = "\"" + hash + "-gzip\"";
+        this.cacheControl = cacheControl;
+    }
+
+    ResponseEntity<byte[]> respond(HttpHeaders requestHeaders) {
+        boolean useGzip = acceptsGzip(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String currentEtag = useGzip ? gzipEtag : etag;
+        if (notModified(requestHeaders.getIfNoneMatch(), currentEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(currentEtag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(currentEtag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (useGzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(gzipped.length)
+                    .body(gzipped);
+        }
+        return response.contentLength(json.length).body(json);
+    }
+
+    // If-None-Match uses weak comparison, so W/ prefixes are ignored. Only the ETag of the encoding this request
+    // negotiated counts: a client holding the gzip copy can't use it once it stops accepting gzip.
+    private static boolean notModified(Iterable<String> ifNoneMatch, String currentEtag) {
+        for (String candidate : ifNoneMatch) {
+            String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (tag.equals("*") || tag.equals(currentEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
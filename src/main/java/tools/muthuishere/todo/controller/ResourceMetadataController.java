@@ -1,16 +1,28 @@
 package tools.muthuishere.todo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 public class ResourceMetadataController {
 
+    private final ObjectMapper objectMapper;
+
     @Value("${mcp.authorization.server.url}")
     private String authServerUrl;
 
@@ -23,19 +35,60 @@ public class ResourceMetadataController {
     @Value("${mcp.resource.server.base-path}")
     private String resourceBasePath;
 
+    @Value("${mcp.discovery.cache-max-age:PT1H}")
+    private Duration cacheMaxAge;
+
+    private DiscoveryDocument resourceMetadata;
+    private DiscoveryDocument authorizationServerMetadata;
+    private DiscoveryDocument openidConfiguration;
+
     /**
-     * OAuth 2.0 Protected Resource Metadata endpoint
-     * As per RFC 8707: https://tools.ietf.org/html/rfc8707
+     * The documents only depend on configuration, so they are serialized and gzipped once here
+     * instead of on every client (re)connect.
      */
-    @GetMapping("/.well-known/oauth-protected-resource/mcp/")
-    public Map<String, Object> getResourceMetadata() {
-        Map<String, Object> metadata = new java.util.HashMap<>();
+    @PostConstruct
+    void renderDocuments() {
+        CacheControl cacheControl = CacheControl.maxAge(cacheMaxAge).cachePublic();
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
         metadata.put("resource_name", "Todo MCP Server");
         metadata.put("resource", resourceBasePath);
-        metadata.put("authorization_servers", new String[]{authServerUrl});
-        metadata.put("bearer_methods_supported", new String[]{"header"});
-        metadata.put("scopes_supported", new String[]{"read:email"});
-        return metadata;
+        metadata.put("authorization_servers", List.of(authServerUrl));
+        metadata.put("bearer_methods_supported", List.of("header"));
+        metadata.put("scopes_supported", List.of("read:email"));
+        resourceMetadata = new DiscoveryDocument(objectMapper, metadata, cacheControl);
+
+        Map<String, Object> authorizationServer = new LinkedHashMap<>();
+        authorizationServer.put("issuer", authServerUrl);
+        authorizationServer.put("authorization_endpoint", authServerUrl + "/oauth2/authorize");
+        authorizationServer.put("token_endpoint", authServerUrl + "/oauth2/token");
+        authorizationServer.put("response_types_supported", List.of("code"));
+        authorizationServer.put("grant_types_supported", List.of("authorization_code"));
+        authorizationServer.put("scopes_supported", List.of("read:email"));
+        authorizationServer.put("token_endpoint_auth_methods_supported", List.of("client_secret_basic", "client_secret_post", "none"));
+        authorizationServer.put("registration_endpoint", authServerUrl + "/oauth2/register");
+        authorizationServerMetadata = new DiscoveryDocument(objectMapper, authorizationServer, cacheControl);
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("issuer", authServerUrl);
+        config.put("authorization_endpoint", authServerUrl + "/oauth2/authorize");
+        config.put("token_endpoint", authServerUrl + "/oauth2/token");
+        config.put("response_types_supported", List.of("code"));
+        config.put("subject_types_supported", List.of("public"));
+        config.put("id_token_signing_alg_values_supported", List.of("RS256"));
+        config.put("scopes_supported", List.of("openid", "email", "profile", "read:email"));
+        config.put("claims_supported", List.of("sub", "email", "email_verified"));
+        config.put("registration_endpoint", authServerUrl + "/oauth2/register");
+        openidConfiguration = new DiscoveryDocument(objectMapper, config, cacheControl);
+    }
+
+    /**
+     * OAuth 2.0 Protected Resource Metadata endpoint
+     * As per RFC 8707: https://tools.ietf.org/html/rfc8707
+     */
+    @GetMapping(value = "/.well-known/oauth-protected-resource/mcp/", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getResourceMetadata(@RequestHeader HttpHeaders headers) {
+        return resourceMetadata.respond(headers);
     }
 
     /**
@@ -43,9 +96,9 @@ public class ResourceMetadataController {
      * Required for MCP Inspector discovery
      */
     @GetMapping(value = "/.well-known/oauth-protected-resource", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> getGenericResourceMetadata() {
+    public ResponseEntity<byte[]> getGenericResourceMetadata(@RequestHeader HttpHeaders headers) {
         // Return the same metadata as the MCP-specific endpoint
-        return ResponseEntity.ok(getResourceMetadata());
+        return resourceMetadata.respond(headers);
     }
 
     /**
@@ -53,18 +106,8 @@ public class ResourceMetadataController {
      * As per RFC 8414: https://tools.ietf.org/html/rfc8414
      */
     @GetMapping(value = "/.well-known/oauth-authorization-server", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> authorizationServerMetadata() {
-        Map<String, Object> metadata = new java.util.HashMap<>();
-        metadata.put("issuer", authServerUrl);
-        metadata.put("authorization_endpoint", authServerUrl + "/oauth2/authorize");
-        metadata.put("token_endpoint", authServerUrl + "/oauth2/token");
-        metadata.put("response_types_supported", new String[]{"code"});
-        metadata.put("grant_types_supported", new String[]{"authorization_code"});
-        metadata.put("scopes_supported", new String[]{"read:email"});
-        metadata.put("token_endpoint_auth_methods_supported", new String[]{"client_secret_basic", "client_secret_post", "none"});
-        metadata.put("registration_endpoint", authServerUrl + "/oauth2/register");
-        
-        return ResponseEntity.ok(metadata);
+    public ResponseEntity<byte[]> authorizationServerMetadata(@RequestHeader HttpHeaders headers) {
+        return authorizationServerMetadata.respond(headers);
     }
 
     /**
@@ -72,19 +115,8 @@ public class ResourceMetadataController {
      * As per OpenID Connect Discovery spec
      */
     @GetMapping(value = "/.well-known/openid-configuration", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> openidConfiguration() {
-        Map<String, Object> config = new java.util.HashMap<>();
-        config.put("issuer", authServerUrl);
-        config.put("authorization_endpoint", authServerUrl + "/oauth2/authorize");
-        config.put("token_endpoint", authServerUrl + "/oauth2/token");
-        config.put("response_types_supported", new String[]{"code"});
-        config.put("subject_types_supported", new String[]{"public"});
-        config.put("id_token_signing_alg_values_supported", new String[]{"RS256"});
-        config.put("scopes_supported", new String[]{"openid", "email", "profile", "read:email"});
-        config.put("claims_supported", new String[]{"sub", "email", "email_verified"});
-        config.put("registration_endpoint", authServerUrl + "/oauth2/register");
-        
-        return ResponseEntity.ok(config);
+    public ResponseEntity<byte[]> openidConfiguration(@RequestHeader HttpHeaders headers) {
+        return openidConfiguration.respond(headers);
     }
 
     /**
@@ -0,0 +1,83 @@
+package tools.muthuishere.todo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gauges open MCP event streams (GET /sse for SSE, GET /mcp for streamable), i.e. connected sessions.
+ * The streams are async requests, so the count drops when the async request completes, not when the filter returns.
+ */
+@Component
+public class McpSessionMetricsFilter extends OncePerRequestFilter {
+
+    private final AtomicInteger activeSessions;
+
+    public McpSessionMetricsFilter(MeterRegistry registry) {
+        this.activeSessions = registry.gauge("mcp.sessions.active", new AtomicInteger());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !"GET".equals(request.getMethod()) || !(path.equals("/sse") || path.equals("/mcp"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        activeSessions.incrementAndGet();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new SessionEndListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                activeSessions.decrementAndGet();
+            }
+        }
+    }
+
+    private final class SessionEndListener implements AsyncListener {
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        private void end() {
+            if (ended.compareAndSet(false, true)) {
+                activeSessions.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            end();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            end();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            end();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // re-registered by the container, nothing to do
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package tools.muthuishere.todo.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times every @McpTool invocation and the JWT decode, tagged by tool name.
+ * The transport tag (sse/streamable/stateless/stdio) is added to all meters through management.metrics.tags.
+ * Runs outside the rate limit aspect, so rejected calls are timed and counted too.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class McpToolMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final boolean recordPayloadSize;
+    private final double payloadSampleRate;
+    private final ConcurrentHashMap<String, AtomicInteger> activeByTool = new ConcurrentHashMap<>();
+
+    public McpToolMetricsAspect(MeterRegistry registry, ObjectMapper objectMapper,
+                                @Value("${mcp.metrics.payload-size.enabled:false}") boolean recordPayloadSize,
+                                @Value("${mcp.metrics.payload-size.sample-rate:0.01}") double payloadSampleRate) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.recordPayloadSize = recordPayloadSize;
+        this.payloadSampleRate = payloadSampleRate;
+    }
+
+    @Around("@annotation(mcpTool)")
+    public Object timeTool(ProceedingJoinPoint joinPoint, McpTool mcpTool) throws Throwable {
+        String tool = mcpTool.name();
+        AtomicInteger active = activeByTool.computeIfAbsent(tool, name ->
+                registry.gauge("mcp.tool.active", Tags.of("tool", name), new AtomicInteger()));
+        active.incrementAndGet();
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            if (recordPayloadSize && ThreadLocalRandom.current().nextDouble() < payloadSampleRate) {
+                recordPayloadSize(tool, result);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            registry.counter("mcp.tool.errors", "tool", tool, "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            active.decrementAndGet();
+            sample.stop(registry.timer("mcp.tool.invocations", "tool", tool, "outcome", outcome));
+        }
+    }
+
+    @Around("execution(* org.springframework.security.oauth2.jwt.JwtDecoder.decode(..))")
+    public Object timeDecode(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(registry.timer("auth.jwt.decode", "outcome", outcome));
+        }
+    }
+
+    // Serializes into a counting sink, the tool result itself is serialized again by the MCP transport,
+    // which is why only a sample of the calls is measured
+    private void recordPayloadSize(String tool, Object result) {
+        if (result == null) {
+            return;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(counter, result);
+            DistributionSummary.builder("mcp.tool.response.size")
+                    .baseUnit("bytes")
+                    .tag("tool", tool)
+                    .register(registry)
+                    .record(counter.count);
+        } catch (Exception e) {
+            log.debug("Could not measure payload of {}: {}", tool, e.getMessage());
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package tools.muthuishere.todo.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import tools.muthuishere.todo.config.FirebaseJwtDecoder;
+import tools.muthuishere.todo.config.VerifiedTokenCache;
+import tools.muthuishere.todo.ratelimit.RateLimiter;
+import tools.muthuishere.todo.todo.TodoCache;
+import tools.muthuishere.todo.todo.TodoChangeFeed;
+import tools.muthuishere.todo.todo.TodoSearchIndex;
+
+/**
+ * Exposes the counters our caches keep as Micrometer meters.
+ * Repository timings come from Spring Boot's spring.data.repository.invocations metric.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder todoCacheMetrics(TodoCache todoCache) {
+        return registry -> {
+            FunctionCounter.builder("todo.cache.requests", todoCache, TodoCache::getHits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("todo.cache.requests", todoCache, TodoCache::getMisses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("todo.cache.evictions", todoCache,
+                    cache -> cache.getPartitionStats().evictionCount()).register(registry);
+            Gauge.builder("todo.cache.users", todoCache, TodoCache::getPartitionCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder todoSearchMetrics(TodoSearchIndex searchIndex) {
+        return registry -> Gauge.builder("todo.search.users", searchIndex, TodoSearchIndex::getPartitionCount)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder todoChangeFeedMetrics(TodoChangeFeed changeFeed) {
+        return registry -> Gauge.builder("todo.changes.subscriptions", changeFeed, TodoChangeFeed::getSubscriptionCount)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder rateLimitMetrics(RateLimiter rateLimiter) {
+        return registry -> {
+            Gauge.builder("mcp.admission.limit", rateLimiter, RateLimiter::getConcurrencyLimit).register(registry);
+            Gauge.builder("mcp.admission.in-flight", rateLimiter, RateLimiter::getInFlight).register(registry);
+            Gauge.builder("mcp.rate-limit.users", rateLimiter, RateLimiter::getUserCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder tokenCacheMetrics(JwtDecoder jwtDecoder) {
+        return registry -> {
+            if (!(jwtDecoder instanceof FirebaseJwtDecoder firebaseJwtDecoder)) {
+                return;
+            }
+            VerifiedTokenCache tokenCache = firebaseJwtDecoder.getTokenCache();
+            FunctionCounter.builder("auth.token.cache.requests", tokenCache, VerifiedTokenCache::getHits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.token.cache.requests", tokenCache, VerifiedTokenCache::getMisses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("auth.token.cache.evictions", tokenCache, VerifiedTokenCache::getEvictions)
+                    .register(registry);
+            Gauge.builder("auth.token.cache.size", tokenCache, VerifiedTokenCache::size).register(registry);
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package tools.muthuishere.todo.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Server-wide limit on calls in flight that follows the observed latency (AIMD over latency windows).
+ * <p>
+ * Each operation (tool or REST route) has its own baseline, a long-term average of its latency, so a cached
+ * read answering in microseconds says nothing about what a database write should take. A call's sample is its
+ * latency divided by its operation's baseline. Samples are gathered in windows of about one limit's worth of
+ * calls: when a window's mean ratio exceeds tolerance, the limit is cut by backoff once, otherwise a busy
+ * window raises it by one. When the database pool saturates, latency climbs before anything fails, so the
+ * limit drops and excess calls are turned away at the door instead of queueing for a connection.
+ * Admission and updates are compare-and-set loops, no locks.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF = 0.9;
+    // samples a baseline averages over, slow enough that a few bad windows don't move it much
+    private static final double BASELINE_ALPHA = 1.0 / 500;
+    private static final int MIN_WINDOW = 10;
+    // beyond this many distinct operations, the rest share one baseline
+    private static final int MAX_OPERATIONS = 256;
+    private static final String OTHER = "other";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final ConcurrentHashMap<String, AtomicLong> baselines = new ConcurrentHashMap<>();
+    private final AtomicReference<Window> window;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || minLimit > maxLimit || tolerance <= 1.0) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit and tolerance > 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(Math.clamp(initialLimit, minLimit, maxLimit)));
+        this.window = new AtomicReference<>(new Window(windowSize()));
+    }
+
+    /**
+     * Claims a slot, false when the limit is reached. Every true has to be followed by one {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot and records the call's latency against its operation's baseline.
+     */
+    public void release(String operation, long latencyNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        double ratio = latencyNanos / updateBaseline(operation, latencyNanos);
+        Window current = window.get();
+        if (current.add(ratio, wasInFlight) && window.compareAndSet(current, new Window(windowSize()))) {
+            // only the caller that filled the window gets here, so the limit moves once per window
+            if (current.meanRatio() > tolerance) {
+                updateLimit(limit -> Math.max(minLimit, limit * BACKOFF));
+            } else if (current.maxInFlight.get() * 2 >= (int) getLimit()) {
+                // only grow when at least half the limit was used, an idle server says nothing about its capacity
+                updateLimit(limit -> Math.min(maxLimit, limit + 1));
+            }
+        }
+    }
+
+    // returns the baseline before this sample, the first sample of an operation is its own baseline
+    private double updateBaseline(String operation, long latencyNanos) {
+        AtomicLong bits = baselines.get(operation);
+        if (bits == null) {
+            String key = baselines.size() < MAX_OPERATIONS ? operation : OTHER;
+            bits = baselines.computeIfAbsent(key, k -> new AtomicLong(Double.doubleToLongBits(Double.NaN)));
+        }
+        while (true) {
+            long current = bits.get();
+            double baseline = Double.longBitsToDouble(current);
+            double next = Double.isNaN(baseline)
+                    ? latencyNanos
+                    : baseline + (latencyNanos - baseline) * BASELINE_ALPHA;
+            if (bits.compareAndSet(current, Double.doubleToLongBits(next))) {
+                return Math.max(1.0, Double.isNaN(baseline) ? next : baseline);
+            }
+        }
+    }
+
+    private int windowSize() {
+        return Math.max(MIN_WINDOW, (int) getLimit());
+    }
+
+    private void updateLimit(DoubleUnaryOperator change) {
+        while (true) {
+            long bits = limitBits.get();
+            long next = Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(bits)));
+            if (bits == next || limitBits.compareAndSet(bits, next)) {
+                return;
+            }
+        }
+    }
+
+    public double getLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static final class Window {
+        final int size;
+        final AtomicInteger count = new AtomicInteger();
+        final DoubleAdder ratios = new DoubleAdder();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        Window(int size) {
+            this.size = size;
+        }
+
+        // true for the sample that completes the window, samples arriving after that are dropped
+        boolean add(double ratio, int inFlight) {
+            int n = count.incrementAndGet();
+            if (n > size) {
+                return false;
+            }
+            ratios.add(ratio);
+            maxInFlight.accumulateAndGet(inFlight, Math::max);
+            return n == size;
+        }
+
+        double meanRatio() {
+            return ratios.sum() / size;
+        }
+    }
+}
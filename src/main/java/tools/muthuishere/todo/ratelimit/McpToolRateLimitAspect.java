@@ -0,0 +1,51 @@
+package tools.muthuishere.todo.ratelimit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.todo.MCPContextHolder;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Runs every @McpTool through {@link RateLimiter}, keyed by the caller's email. Tools listed in
+ * mcp.rate-limit.write-tools spend the write budget, all others the read budget.
+ * Innermost aspect, so the metrics aspect counts rejections and the latency fed to the limiter is the tool's own.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class McpToolRateLimitAspect {
+
+    private final RateLimiter rateLimiter;
+    private final Set<String> writeTools;
+    private final Set<String> longRunningTools;
+
+    public McpToolRateLimitAspect(RateLimiter rateLimiter,
+                                  @Value("${mcp.rate-limit.write-tools:}") Set<String> writeTools,
+                                  @Value("${mcp.admission.exempt-tools:}") Set<String> longRunningTools) {
+        this.rateLimiter = rateLimiter;
+        this.writeTools = writeTools;
+        this.longRunningTools = longRunningTools;
+    }
+
+    @Around("@annotation(mcpTool)")
+    public Object limit(ProceedingJoinPoint joinPoint, McpTool mcpTool) throws Throwable {
+        Optional<String> email = MCPContextHolder.findEmail();
+        if (email.isEmpty() || !rateLimiter.isEnabled()) {
+            // unauthenticated calls fail in the tool itself
+            return joinPoint.proceed();
+        }
+        String tool = mcpTool.name();
+        try (RateLimiter.Permit permit = rateLimiter.acquire(email.get(), tool, writeTools.contains(tool),
+                !longRunningTools.contains(tool))) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tools.muthuishere.todo.ratelimit;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * A call turned away by {@link RateLimiter}. Thrown from a tool, the MCP server hands the message to the
+ * client as an error result. For HTTP calls RateLimitFilter turns it into 429 or 503 with Retry-After.
+ * No stack trace, rejecting is the cheap path on purpose.
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    public enum Reason {
+        /** the user used up their read or write budget */
+        USER_RATE,
+        /** the server is at its concurrency limit */
+        SERVER_BUSY
+    }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(Reason reason, Duration retryAfter) {
+        super(message(reason, retryAfter), null, false, false);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Whole seconds for the Retry-After header, at least 1.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+
+    private static String message(Reason reason, Duration retryAfter) {
+        long millis = Math.max(1, retryAfter.toMillis());
+        return reason == Reason.USER_RATE
+                ? "Rate limit exceeded, too many calls for this user. Retry after " + millis + " ms."
+                : "Server is busy. Retry after " + millis + " ms.";
+    }
+}
@@ -0,0 +1,77 @@
+package tools.muthuishere.todo.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.muthuishere.todo.todo.MCPContextHolder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Rate limits the REST API under /api/user: GET spends the read budget, everything else the write budget.
+ * Rejections are 429 (user over budget) or 503 (server at its concurrency limit) with Retry-After.
+ * Registered after the Spring Security filter chain, so the caller is already known.
+ * MCP endpoints aren't filtered here, their tools are limited one by one in McpToolRateLimitAspect.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || !request.getRequestURI().startsWith("/api/user");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Optional<String> email = MCPContextHolder.findEmail();
+        if (email.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        // the NDJSON stream is written asynchronously after the filter returns, it only spends a token
+        boolean limitConcurrency = !request.getRequestURI().endsWith("/stream");
+        RateLimiter.Permit permit;
+        try {
+            permit = rateLimiter.acquire(email.get(), route(request), !"GET".equals(request.getMethod()),
+                    limitConcurrency);
+        } catch (RateLimitExceededException e) {
+            reject(response, e);
+            return;
+        }
+        try (permit) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    // GET /api/user/todos/{id}, so every todo id shares one latency baseline
+    private static String route(HttpServletRequest request) {
+        return request.getMethod() + " " + ID_SEGMENT.matcher(request.getRequestURI()).replaceAll("/{id}");
+    }
+
+    private static void reject(HttpServletResponse response, RateLimitExceededException e) throws IOException {
+        response.setStatus(e.getReason() == RateLimitExceededException.Reason.USER_RATE
+                ? HttpStatus.TOO_MANY_REQUESTS.value()
+                : HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("""
+                {"error": "%s", "error_description": "%s"}
+                """.formatted(e.getReason() == RateLimitExceededException.Reason.USER_RATE
+                ? "rate_limited" : "server_busy", e.getMessage()));
+    }
+}
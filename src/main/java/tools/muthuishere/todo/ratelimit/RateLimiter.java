@@ -0,0 +1,102 @@
+package tools.muthuishere.todo.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Admission control for tools and the REST API: a read and a write token bucket per user, then a
+ * server-wide adaptive concurrency limit. A user over budget is rejected before taking a slot, so one
+ * runaway agent can't use up the shared limit.
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * Held while the call runs, closing it reports the latency to the concurrency limiter.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    private final boolean enabled;
+    private final TokenBucketLimiter reads;
+    private final TokenBucketLimiter writes;
+    private final AdaptiveConcurrencyLimiter concurrency;
+    private final Duration busyRetryAfter;
+    private final Counter userRateRejections;
+    private final Counter serverBusyRejections;
+
+    public RateLimiter(MeterRegistry registry,
+                       @Value("${mcp.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${mcp.rate-limit.read.per-second:20}") double readsPerSecond,
+                       @Value("${mcp.rate-limit.read.burst:40}") int readBurst,
+                       @Value("${mcp.rate-limit.write.per-second:5}") double writesPerSecond,
+                       @Value("${mcp.rate-limit.write.burst:20}") int writeBurst,
+                       @Value("${mcp.rate-limit.max-users:100000}") long maxUsers,
+                       @Value("${mcp.admission.initial-limit:32}") int initialLimit,
+                       @Value("${mcp.admission.min-limit:4}") int minLimit,
+                       @Value("${mcp.admission.max-limit:256}") int maxLimit,
+                       @Value("${mcp.admission.latency-tolerance:3.0}") double latencyTolerance,
+                       @Value("${mcp.admission.retry-after:PT1S}") Duration busyRetryAfter) {
+        this.enabled = enabled;
+        this.reads = new TokenBucketLimiter(readsPerSecond, readBurst, maxUsers, Ticker.systemTicker());
+        this.writes = new TokenBucketLimiter(writesPerSecond, writeBurst, maxUsers, Ticker.systemTicker());
+        this.concurrency = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTolerance);
+        this.busyRetryAfter = busyRetryAfter;
+        this.userRateRejections = registry.counter("mcp.rate-limit.rejections", "reason", "user_rate");
+        this.serverBusyRejections = registry.counter("mcp.rate-limit.rejections", "reason", "server_busy");
+    }
+
+    /**
+     * Takes a token of the user's read or write budget and a concurrency slot.
+     *
+     * @param operation        tool name or REST route, latency is judged against this operation's own baseline
+     * @param limitConcurrency false for long-running calls (long polls, client sampling), whose latency
+     *                         says nothing about server load
+     * @throws RateLimitExceededException when either is exhausted
+     */
+    public Permit acquire(String email, String operation, boolean write, boolean limitConcurrency) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        long wait = (write ? writes : reads).tryAcquire(email);
+        if (wait > 0) {
+            userRateRejections.increment();
+            throw new RateLimitExceededException(RateLimitExceededException.Reason.USER_RATE, Duration.ofNanos(wait));
+        }
+        if (!limitConcurrency) {
+            return UNLIMITED;
+        }
+        if (!concurrency.tryAcquire()) {
+            serverBusyRejections.increment();
+            throw new RateLimitExceededException(RateLimitExceededException.Reason.SERVER_BUSY, busyRetryAfter);
+        }
+        long started = System.nanoTime();
+        return () -> concurrency.release(operation, System.nanoTime() - started);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getConcurrencyLimit() {
+        return concurrency.getLimit();
+    }
+
+    public int getInFlight() {
+        return concurrency.getInFlight();
+    }
+
+    public long getUserCount() {
+        return Math.max(reads.getKeyCount(), writes.getKeyCount());
+    }
+}
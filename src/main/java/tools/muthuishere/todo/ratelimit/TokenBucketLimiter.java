@@ -0,0 +1,68 @@
+package tools.muthuishere.todo.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per key, implemented as GCRA (generic cell rate algorithm).
+ * <p>
+ * Instead of a token count and a refill timestamp, each key holds one number: the theoretical arrival time (TAT)
+ * at which its bucket would be full again. A call is allowed when advancing the TAT by one emission interval
+ * keeps it within burst intervals of now, and is recorded with a single compare-and-set, so there are no locks.
+ * <p>
+ * A key idle for burst intervals has a full bucket, which is exactly what a missing key means, so entries
+ * expire after that long and the cache also drops the least recently used keys above maxKeys.
+ */
+public class TokenBucketLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param perSecond sustained rate
+     * @param burst     calls allowed at once after being idle
+     */
+    public TokenBucketLimiter(double perSecond, int burst, long maxKeys, Ticker ticker) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Takes one token of key. Returns 0 when allowed, otherwise how many nanoseconds until a token is free;
+     * a rejected call takes nothing.
+     */
+    public long tryAcquire(String key) {
+        long now = ticker.read();
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long getKeyCount() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,39 @@
+package tools.muthuishere.todo.sampling;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a sampling request. Only {@link Success} carries model output, every other case says why there is none.
+ */
+public sealed interface SamplingResult {
+
+    /**
+     * @param cached true when the text was served from the sampling cache without asking the client
+     */
+    record Success(String text, boolean cached) implements SamplingResult {
+    }
+
+    /**
+     * The client did not announce the sampling capability, or the tool was called without a session.
+     */
+    record Unsupported() implements SamplingResult {
+    }
+
+    /**
+     * Too many samplings already in flight for this session or for the whole server, nothing was sent.
+     */
+    record Rejected(String reason) implements SamplingResult {
+    }
+
+    record TimedOut(Duration timeout) implements SamplingResult {
+    }
+
+    /**
+     * The client answered with image or audio content instead of text.
+     */
+    record NonText(String contentType) implements SamplingResult {
+    }
+
+    record Failed(String message) implements SamplingResult {
+    }
+}
@@ -0,0 +1,206 @@
+package tools.muthuishere.todo.sampling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends sampling requests (createMessage) to the MCP client with a deadline and bounded concurrency.
+ * <p>
+ * A request needs a permit of its session and one of the server, when either is used up it is rejected
+ * right away instead of queueing on the client's LLM. A session only has an entry while it has samplings in flight. Successful texts are cached per user by system prompt and
+ * content hash, so a user asking the same question twice (e.g. summarising an unchanged todo list) is answered
+ * locally, and never gets an answer another user's client produced.
+ * The caller's thread is never blocked beyond the timeout, the client call runs on a virtual thread.
+ */
+@Slf4j
+@Service
+public class SamplingService {
+
+    private final Semaphore serverPermits;
+    private final int maxConcurrentPerSession;
+    private final Duration timeout;
+    private final int maxTokens;
+    private final ConcurrentHashMap<String, Integer> sessionInFlight = new ConcurrentHashMap<>();
+    private final Cache<String, String> results;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SamplingService(@Value("${mcp.sampling.max-concurrent:32}") int maxConcurrent,
+                           @Value("${mcp.sampling.max-concurrent-per-session:2}") int maxConcurrentPerSession,
+                           @Value("${mcp.sampling.timeout:PT30S}") Duration timeout,
+                           @Value("${mcp.sampling.max-tokens:500}") int maxTokens,
+                           @Value("${mcp.sampling.cache.max-size:1000}") long cacheMaxSize,
+                           @Value("${mcp.sampling.cache.ttl:PT10M}") Duration cacheTtl) {
+        this.serverPermits = new Semaphore(maxConcurrent);
+        this.maxConcurrentPerSession = maxConcurrentPerSession;
+        this.timeout = timeout;
+        this.maxTokens = maxTokens;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Blocks until the client answered or the timeout passed. owner is the user the answer may be cached for.
+     */
+    public SamplingResult sample(McpSyncServerExchange exchange, String owner, String systemPrompt, String content) {
+        return sampleAsync(exchange, owner, systemPrompt, content).join();
+    }
+
+    /**
+     * Never completes exceptionally, failures come back as {@link SamplingResult} cases.
+     */
+    public CompletableFuture<SamplingResult> sampleAsync(McpSyncServerExchange exchange, String owner,
+                                                         String systemPrompt, String content) {
+        Assert.notNull(owner, "Owner must not be null");
+        Assert.notNull(systemPrompt, "System prompt must not be null");
+        Assert.notNull(content, "Content must not be null");
+        if (exchange == null || exchange.getClientCapabilities() == null
+                || exchange.getClientCapabilities().sampling() == null) {
+            return CompletableFuture.completedFuture(new SamplingResult.Unsupported());
+        }
+
+        String key = cacheKey(owner, systemPrompt, content);
+        String cached = results.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new SamplingResult.Success(cached, true));
+        }
+
+        String sessionId = String.valueOf(exchange.sessionId());
+        if (!acquireSession(sessionId)) {
+            return CompletableFuture.completedFuture(new SamplingResult.Rejected(
+                    "At most " + maxConcurrentPerSession + " samplings per session at a time"));
+        }
+        if (!serverPermits.tryAcquire()) {
+            releaseSession(sessionId);
+            return CompletableFuture.completedFuture(new SamplingResult.Rejected("Server sampling capacity reached"));
+        }
+
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                serverPermits.release();
+                releaseSession(sessionId);
+            }
+        };
+        CompletableFuture<SamplingResult> result = new CompletableFuture<>();
+        Future<?> call = executor.submit(() -> {
+            started.set(true);
+            try {
+                result.complete(createMessage(exchange, systemPrompt, content, key));
+            } catch (Exception e) {
+                log.debug("Sampling failed", e);
+                result.complete(new SamplingResult.Failed(e.getMessage()));
+            } finally {
+                release.run();
+            }
+        });
+        return result
+                .completeOnTimeout(new SamplingResult.TimedOut(timeout), timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((outcome, error) -> {
+                    if (outcome instanceof SamplingResult.TimedOut) {
+                        // interrupts the blocked client call, which gives the permits back. A call that never
+                        // started has no finally to run, so its permits are returned here.
+                        call.cancel(true);
+                        if (!started.get()) {
+                            release.run();
+                        }
+                    }
+                });
+    }
+
+    private SamplingResult createMessage(McpSyncServerExchange exchange, String systemPrompt, String content,
+                                         String key) {
+        var request = McpSchema.CreateMessageRequest.builder()
+                .systemPrompt(systemPrompt)
+                .messages(List.of(
+                        new McpSchema.SamplingMessage(
+                                McpSchema.Role.USER,
+                                new McpSchema.TextContent(content))))
+                .maxTokens(maxTokens)
+                .build();
+
+        McpSchema.CreateMessageResult response = exchange.createMessage(request);
+        if (!(response.content() instanceof McpSchema.TextContent text)) {
+            return new SamplingResult.NonText(response.content() == null ? "none" : response.content().type());
+        }
+        results.put(key, text.text());
+        return new SamplingResult.Success(text.text(), false);
+    }
+
+    private boolean acquireSession(String sessionId) {
+        boolean[] acquired = {false};
+        sessionInFlight.compute(sessionId, (id, inFlight) -> {
+            int current = inFlight == null ? 0 : inFlight;
+            if (current >= maxConcurrentPerSession) {
+                return inFlight;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    // the entry goes away with the last sampling of the session, nothing has to expire
+    private void releaseSession(String sessionId) {
+        sessionInFlight.computeIfPresent(sessionId, (id, inFlight) -> inFlight == 1 ? null : inFlight - 1);
+    }
+
+    public void clearCache() {
+        results.invalidateAll();
+    }
+
+    public int getAvailableServerPermits() {
+        return serverPermits.availablePermits();
+    }
+
+    public int getSessionsInFlight() {
+        return sessionInFlight.size();
+    }
+
+    public long getCacheSize() {
+        return results.estimatedSize();
+    }
+
+    private static String cacheKey(String owner, String systemPrompt, String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(owner.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(systemPrompt.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
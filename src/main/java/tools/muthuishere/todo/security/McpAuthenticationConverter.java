@@ -0,0 +1,20 @@
+package tools.muthuishere.todo.security;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+/**
+ * Turns a decoded Firebase token into an {@link McpAuthenticationToken}, authorities are mapped as by default.
+ */
+public class McpAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private final JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        McpPrincipal principal = new McpPrincipal(jwt.getClaimAsString("email"), jwt.getSubject());
+        return new McpAuthenticationToken(jwt, authoritiesConverter.convert(jwt), principal);
+    }
+}
@@ -0,0 +1,25 @@
+package tools.muthuishere.todo.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+
+/**
+ * A JwtAuthenticationToken that also carries the resolved {@link McpPrincipal},
+ * so tools read email and uid from a field instead of the JWT claims map.
+ */
+public class McpAuthenticationToken extends JwtAuthenticationToken {
+
+    private final McpPrincipal mcpPrincipal;
+
+    public McpAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities, McpPrincipal mcpPrincipal) {
+        super(jwt, authorities, mcpPrincipal.getName());
+        this.mcpPrincipal = mcpPrincipal;
+    }
+
+    public McpPrincipal getMcpPrincipal() {
+        return mcpPrincipal;
+    }
+}
@@ -0,0 +1,17 @@
+package tools.muthuishere.todo.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The caller of an MCP request, resolved once when the token is authenticated.
+ *
+ * @param email the user's email, null when the token has no email claim
+ * @param uid   the Firebase user id (sub claim)
+ */
+public record McpPrincipal(String email, String uid) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email != null ? email : uid;
+    }
+}
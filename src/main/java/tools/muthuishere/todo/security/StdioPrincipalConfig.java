@@ -0,0 +1,52 @@
+package tools.muthuishere.todo.security;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The stdio transport has no HTTP request and no token, the process belongs to one local user.
+ * Every tool call runs with that user, from mcp.stdio.user-email, as the authentication of the thread the
+ * transport calls the tool on, and the thread's context is restored afterwards. Outermost aspect, so the
+ * metrics and rate limit aspects see the user too.
+ */
+@Aspect
+@Component
+@Profile("stdio")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StdioPrincipalConfig {
+
+    private final Authentication authentication;
+
+    public StdioPrincipalConfig(@Value("${mcp.stdio.user-email:}") String userEmail) {
+        this.authentication = userEmail.isBlank() ? null : UsernamePasswordAuthenticationToken.authenticated(
+                new McpPrincipal(userEmail, "stdio"), null, List.of());
+    }
+
+    @Around("@annotation(org.springaicommunity.mcp.annotation.McpTool)")
+    public Object authenticate(ProceedingJoinPoint joinPoint) throws Throwable {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        if (authentication == null || previous.getAuthentication() != null) {
+            return joinPoint.proceed();
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
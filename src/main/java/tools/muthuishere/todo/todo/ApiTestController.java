@@ -1,11 +1,23 @@
 package tools.muthuishere.todo.todo;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoList;
+import tools.muthuishere.todo.todo.model.TodoPage;
+import tools.muthuishere.todo.todo.model.TodoShape;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -13,7 +25,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ApiTestController {
 
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final byte[] NEWLINE = {'\n'};
+
     private final TodoService userTodoService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> getHealth() {
@@ -43,15 +59,35 @@ public class ApiTestController {
         }
     }
 
+    /**
+     * All todos, or one page when cursor or limit is given. view=compact or fields=id,title,... trim each todo
+     * the same way the list tools do.
+     */
     @GetMapping("/user/todos")
-    public ResponseEntity<?> getAllTodosForUser() {
+    public ResponseEntity<?> getAllTodosForUser(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
         try {
             String email = MCPContextHolder.getEmail();
+            TodoShape shape = TodoShape.of(view, fields, TodoShape.FULL);
+            if (cursor != null || limit != null) {
+                TodoPage page = userTodoService.getTodoPage(email, cursor, limit == null ? 50 : limit);
+                // HashMap since nextCursor is null on the last page
+                Map<String, Object> body = new HashMap<>();
+                body.put("email", email);
+                body.put("count", page.getTodos().size());
+                body.put("todos", TodoList.of(page.getTodos(), shape));
+                body.put("nextCursor", page.getNextCursor());
+                body.put("hasMore", page.isHasMore());
+                return ResponseEntity.ok(body);
+            }
             var todos = userTodoService.getAllTodos(email);
             return ResponseEntity.ok(Map.of(
                 "email", email,
                 "count", todos.size(),
-                "todos", todos
+                "todos", TodoList.of(todos, shape)
             ));
         } catch (Exception e) {
             return ResponseEntity.ok(Map.of(
@@ -61,6 +97,46 @@ public class ApiTestController {
         }
     }
 
+    @GetMapping("/user/todos/stats")
+    public ResponseEntity<?> getTodoStatsForUser(@RequestParam(defaultValue = "30") int days) {
+        try {
+            String email = MCPContextHolder.getEmail();
+            return ResponseEntity.ok(userTodoService.getTodoStats(email, days));
+        } catch (Exception e) {
+            return ResponseEntity.ok(Map.of(
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Streams all todos of the user as newline delimited JSON, flushed in chunks of 500.
+     */
+    @GetMapping(value = "/user/todos/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamTodosForUser() {
+        // resolve the user on the request thread, the body is written asynchronously
+        String email = MCPContextHolder.getEmail();
+        // keep the response stream open between values
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> userTodoService.streamAllTodos(email, STREAM_CHUNK_SIZE,
+                chunk -> writeChunk(writer, out, chunk));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private static void writeChunk(ObjectWriter writer, OutputStream out, Iterable<Todo> chunk) {
+        try {
+            for (Todo todo : chunk) {
+                writer.writeValue(out, todo);
+                out.write(NEWLINE);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @PostMapping("/user/todos")
     public ResponseEntity<?> createTodoForUser(@RequestBody Todo todo) {
         try {
@@ -0,0 +1,612 @@
+package tools.muthuishere.todo.todo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoDailyCount;
+import tools.muthuishere.todo.todo.model.TodoStats;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * TodoStore kept on the heap, for the stdio and stateless profiles where the data is a handful of todos
+ * per user and Hibernate/H2 would cost more than the data itself.
+ * <p>
+ * Each user's todos are a pair of arrays sorted by id: a {@code long[]} of ids, searched with a binary search,
+ * and the matching {@link TodoRecord}s. Ids come from one global counter and are handed out under the
+ * owner's lock, so new todos are always appended and keyset pages are a slice of the arrays. The counter is
+ * saved with each snapshot, ids of deleted todos are not reused after a restart.
+ * Users are spread over a fixed set of read/write locks by email, writers for different users rarely meet.
+ * <p>
+ * With {@code todo.store.memory.snapshot-file} set, the store is loaded from that file at startup and written
+ * back every {@code snapshot-interval} when something changed, and on shutdown. On its own, writes between
+ * two snapshots are lost if the process dies. With {@code todo.store.memory.wal.dir} set as well, every write
+ * also goes to a {@link TodoWriteAheadLog} and only returns once it is durable. Startup replays the log on top
+ * of the snapshot and each snapshot drops the log segments it covers.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.store", havingValue = "memory")
+public class InMemoryTodoStore implements TodoStore {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<String, UserTodos> users = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong versions = new AtomicLong();
+    private final Path snapshotFile;
+    private final Duration snapshotInterval;
+    private final Path walDir;
+    private final boolean walFsync;
+    private final Duration walSyncWindow;
+    private final DataSize walSegmentSize;
+    private TodoWriteAheadLog wal;
+    private ScheduledExecutorService snapshots;
+    private long snapshotWrites;
+
+    public InMemoryTodoStore(@Value("${todo.store.memory.snapshot-file:}") String snapshotFile,
+                             @Value("${todo.store.memory.snapshot-interval:PT1M}") Duration snapshotInterval,
+                             @Value("${todo.store.memory.wal.dir:}") String walDir,
+                             @Value("${todo.store.memory.wal.fsync:true}") boolean walFsync,
+                             @Value("${todo.store.memory.wal.sync-window:PT0.002S}") Duration walSyncWindow,
+                             @Value("${todo.store.memory.wal.segment-size:64MB}") DataSize walSegmentSize) {
+        this.walDir = walDir.isBlank() ? null : Path.of(walDir);
+        // the log alone can't be compacted, it always comes with a snapshot next to it
+        this.snapshotFile = !snapshotFile.isBlank() ? Path.of(snapshotFile)
+                : this.walDir != null ? this.walDir.resolve("todos.snapshot") : null;
+        this.snapshotInterval = snapshotInterval;
+        this.walFsync = walFsync;
+        this.walSyncWindow = walSyncWindow;
+        this.walSegmentSize = walSegmentSize;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    // Single threaded, nothing else touches the store before the context is up
+    @PostConstruct
+    void start() throws IOException {
+        if (snapshotFile == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        LongAdder loaded = new LongAdder();
+        TodoSnapshotFile.Header header = TodoSnapshotFile.read(snapshotFile, (email, record) -> {
+            replayPut(email, record);
+            loaded.increment();
+        });
+        lastId.accumulateAndGet(header.lastId(), Math::max);
+        long firstSegment = header.walSegment();
+        long fromSnapshot = loaded.sum();
+        if (walDir != null) {
+            wal = TodoWriteAheadLog.open(walDir, firstSegment, walSegmentSize.toBytes(), walFsync, walSyncWindow,
+                    new TodoWriteAheadLog.Replay() {
+                        @Override
+                        public void put(String email, TodoRecord record) {
+                            replayPut(email, record);
+                            loaded.increment();
+                        }
+
+                        @Override
+                        public void delete(String email, long id) {
+                            // the todo may only be in a dropped segment, its id still must not come back
+                            lastId.accumulateAndGet(id, Math::max);
+                            UserTodos user = users.get(email);
+                            int index = user == null ? -1 : user.indexOf(id);
+                            if (index >= 0) {
+                                user.remove(index, null);
+                            }
+                            loaded.increment();
+                        }
+                    });
+        }
+        users.values().removeIf(user -> user.size == 0);
+        if (loaded.sum() > fromSnapshot) {
+            // fold the replayed log into the next snapshot
+            writes.incrementAndGet();
+        }
+        log.info("Loaded {} todos of {} users from {} and {} changes from the write-ahead log in {} ms",
+                fromSnapshot, users.size(), snapshotFile, loaded.sum() - fromSnapshot,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        if (!snapshotInterval.isZero()) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("todo-snapshot").daemon().factory());
+            long period = snapshotInterval.toMillis();
+            snapshots.scheduleWithFixedDelay(this::snapshotQuietly, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+        if (snapshotFile != null) {
+            snapshot();
+        }
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private void replayPut(String email, TodoRecord record) {
+        users.computeIfAbsent(email, key -> new UserTodos()).put(record);
+        lastId.accumulateAndGet(record.id(), Math::max);
+    }
+
+    /**
+     * Writes all todos to the snapshot file if anything changed since the last one. Users are copied one at a
+     * time under their read lock, so writers are only held up for the copy of their own arrays.
+     * <p>
+     * The log is rolled first. Every write in an older segment was applied before the roll and is in the copy,
+     * later writes may or may not be, and replaying them on top is harmless because frames carry full state.
+     */
+    public synchronized void snapshot() throws IOException {
+        long writesSoFar = writes.get();
+        if (snapshotFile == null || writesSoFar == snapshotWrites) {
+            return;
+        }
+        long walSegment = wal == null ? 0 : wal.roll();
+        try (TodoSnapshotFile.Writer writer = TodoSnapshotFile.create(snapshotFile, walSegment)) {
+            for (String email : users.keySet()) {
+                TodoRecord[] records = read(email, user -> Arrays.copyOf(user.records, user.size));
+                if (records.length > 0) {
+                    writer.user(email, records, records.length);
+                }
+            }
+            writer.commit(lastId.get());
+        }
+        if (wal != null) {
+            wal.deleteSegmentsBefore(walSegment);
+        }
+        snapshotWrites = writesSoFar;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Writing todo snapshot {} failed", snapshotFile, e);
+        }
+    }
+
+    @Override
+    public List<Todo> findAll(String email) {
+        return read(email, user -> user.toTodos(email, 0, user.size, null));
+    }
+
+    @Override
+    public List<Todo> findByCompleted(String email, boolean completed) {
+        return read(email, user -> user.toTodos(email, 0, user.size, completed));
+    }
+
+    @Override
+    public Optional<Todo> findById(String email, long id) {
+        return read(email, user -> {
+            int index = user.indexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(user.records[index].toTodo(email));
+        });
+    }
+
+    @Override
+    public List<Todo> findPage(String email, long afterId, int limit) {
+        return read(email, user -> {
+            int from = user.after(afterId);
+            return user.toTodos(email, from, (int) Math.min(user.size, (long) from + limit), null);
+        });
+    }
+
+    // Records are immutable, so copying the array is enough to hand out chunks without holding the lock
+    @Override
+    public void stream(String email, int chunkSize, Consumer<List<Todo>> chunkConsumer) {
+        TodoRecord[] records = read(email, user -> Arrays.copyOf(user.records, user.size));
+        List<Todo> chunk = new ArrayList<>(Math.min(chunkSize, records.length));
+        for (TodoRecord record : records) {
+            chunk.add(record.toTodo(email));
+            if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public List<TodoSummary> findSummaries(String email, Boolean completed) {
+        return read(email, user -> {
+            List<TodoSummary> summaries = new ArrayList<>(user.size);
+            for (int i = 0; i < user.size; i++) {
+                TodoRecord record = user.records[i];
+                if (completed == null || record.completed() == completed) {
+                    summaries.add(record.toSummary());
+                }
+            }
+            return summaries;
+        });
+    }
+
+    @Override
+    public long count(String email) {
+        return read(email, user -> (long) user.size);
+    }
+
+    @Override
+    public long count(String email, boolean completed) {
+        return read(email, user -> (long) (completed ? user.completed : user.size - user.completed));
+    }
+
+    @Override
+    public TodoStats getStats(String email, LocalDate firstDay, int days) {
+        long firstEpochDay = firstDay.toEpochDay();
+        long[] created = new long[days];
+        long[] updated = new long[days];
+        int[] counts = read(email, user -> {
+            for (int i = 0; i < user.size; i++) {
+                TodoRecord record = user.records[i];
+                countDay(created, record.createdAt(), firstEpochDay);
+                countDay(updated, record.updatedAt(), firstEpochDay);
+            }
+            return new int[]{user.size, user.completed};
+        });
+        return TodoStats.builder()
+                .total(counts[0])
+                .completed(counts[1])
+                .pending(counts[0] - counts[1])
+                .days(days)
+                .createdPerDay(histogram(firstDay, created))
+                .updatedPerDay(histogram(firstDay, updated))
+                .build();
+    }
+
+    private static void countDay(long[] perDay, long micros, long firstEpochDay) {
+        if (micros == TodoRecord.NO_TIME) {
+            return;
+        }
+        long day = TodoRecord.epochDay(micros) - firstEpochDay;
+        if (day >= 0 && day < perDay.length) {
+            perDay[(int) day]++;
+        }
+    }
+
+    private static List<TodoDailyCount> histogram(LocalDate firstDay, long[] perDay) {
+        List<TodoDailyCount> histogram = new ArrayList<>(perDay.length);
+        for (int i = 0; i < perDay.length; i++) {
+            histogram.add(new TodoDailyCount(firstDay.plusDays(i), perDay[i]));
+        }
+        return histogram;
+    }
+
+    @Override
+    public Versioned<Todo> insert(Todo todo) {
+        String email = todo.getEmail();
+        return write(email, true, (user, changes) -> user.add(TodoRecord.of(lastId.incrementAndGet(), todo), changes).toTodo(email));
+    }
+
+    @Override
+    public Versioned<List<Todo>> insertAll(List<Todo> todos) {
+        if (todos.isEmpty()) {
+            return new Versioned<>(new ArrayList<>(), versions.incrementAndGet());
+        }
+        String email = todos.get(0).getEmail();
+        return write(email, true, (user, changes) -> {
+            List<Todo> saved = new ArrayList<>(todos.size());
+            for (Todo todo : todos) {
+                if (!email.equals(todo.getEmail())) {
+                    throw new IllegalArgumentException("insertAll takes the todos of one user");
+                }
+            }
+            for (Todo todo : todos) {
+                saved.add(user.add(TodoRecord.of(lastId.incrementAndGet(), todo), changes).toTodo(email));
+            }
+            return saved;
+        });
+    }
+
+    @Override
+    public Versioned<Optional<Todo>> update(String email, long id, String title, String description,
+                                            boolean completed, LocalDateTime updatedAt) {
+        return write(email, false, (user, changes) -> {
+            int index = user.indexOf(id);
+            if (index < 0) {
+                return Optional.empty();
+            }
+            TodoRecord record = user.records[index]
+                    .withContent(title, description, completed, TodoRecord.micros(updatedAt));
+            user.set(index, record, changes);
+            return Optional.of(record.toTodo(email));
+        });
+    }
+
+    @Override
+    public Versioned<Boolean> setCompleted(String email, long id, boolean completed, LocalDateTime updatedAt) {
+        long micros = TodoRecord.micros(updatedAt);
+        return write(email, false, (user, changes) -> {
+            int index = user.indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+            user.set(index, user.records[index].withCompleted(completed, micros), changes);
+            return true;
+        });
+    }
+
+    @Override
+    public Versioned<List<Long>> setCompleted(String email, Collection<Long> ids, boolean completed,
+                                              LocalDateTime updatedAt) {
+        long micros = TodoRecord.micros(updatedAt);
+        return write(email, false, (user, changes) -> {
+            List<Long> updated = new ArrayList<>();
+            for (Long id : new LinkedHashSet<>(ids)) {
+                int index = user.indexOf(id);
+                if (index >= 0) {
+                    user.set(index, user.records[index].withCompleted(completed, micros), changes);
+                    updated.add(id);
+                }
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public Versioned<Boolean> delete(String email, long id) {
+        return write(email, false, (user, changes) -> {
+            int index = user.indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+            user.remove(index, changes);
+            return true;
+        });
+    }
+
+    @Override
+    public Versioned<List<Long>> delete(String email, Collection<Long> ids) {
+        return write(email, false, (user, changes) -> {
+            List<Long> deleted = new ArrayList<>();
+            for (Long id : new LinkedHashSet<>(ids)) {
+                int index = user.indexOf(id);
+                if (index >= 0) {
+                    user.remove(index, changes);
+                    deleted.add(id);
+                }
+            }
+            return deleted;
+        });
+    }
+
+    public long getUserCount() {
+        return users.size();
+    }
+
+    private ReentrantReadWriteLock lock(String email) {
+        int hash = email.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private <T> T read(String email, Function<UserTodos, T> reader) {
+        Lock lock = lock(email).readLock();
+        lock.lock();
+        try {
+            return reader.apply(users.getOrDefault(email, UserTodos.EMPTY));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs writer under the user's write lock. Only inserts create a user, users whose last todo is gone are
+     * dropped so memory follows the data. With a write-ahead log, the writer records its changes, which are
+     * appended while the lock is still held (so the log has each user's writes in order), and the caller waits
+     * for the fsync after releasing it. A log that already failed rejects the write before anything changes,
+     * and a write the log refuses is taken back before the lock is released. Readers can see a change a few
+     * milliseconds before it is durable, the writer itself never returns earlier. If the fsync fails, the
+     * writer gets an exception but the change stays, like a database that lost its disk while committing.
+     * The version is drawn under the lock too, so it follows the order of the user's writes.
+     */
+    private <T> Versioned<T> write(String email, boolean create, BiFunction<UserTodos, Changes, T> writer) {
+        Changes changes = null;
+        if (wal != null) {
+            wal.checkWritable();
+            changes = new Changes(new TodoWriteAheadLog.Batch(email));
+        }
+        long logPosition = 0;
+        T result;
+        long version;
+        Lock lock = lock(email).writeLock();
+        lock.lock();
+        try {
+            UserTodos user = create
+                    ? users.computeIfAbsent(email, key -> new UserTodos())
+                    : users.getOrDefault(email, UserTodos.EMPTY);
+            try {
+                result = writer.apply(user, changes);
+                if (changes != null && !changes.batch.isEmpty()) {
+                    logPosition = wal.append(changes.batch);
+                }
+            } catch (RuntimeException e) {
+                if (changes != null) {
+                    changes.undo(user);
+                }
+                if (user != UserTodos.EMPTY && user.size == 0) {
+                    users.remove(email);
+                }
+                throw e;
+            }
+            if (user != UserTodos.EMPTY) {
+                writes.incrementAndGet();
+                if (user.size == 0) {
+                    users.remove(email);
+                }
+            }
+            version = versions.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        if (logPosition > 0) {
+            wal.awaitDurable(logPosition);
+        }
+        return new Versioned<>(result, version);
+    }
+
+    /**
+     * One user's todos, ids[i] is records[i].id() and both are sorted by id. Guarded by the user's stripe lock.
+     */
+    private static final class UserTodos {
+
+        // shared stand-in for users without todos, never written to
+        static final UserTodos EMPTY = new UserTodos();
+
+        long[] ids = new long[4];
+        TodoRecord[] records = new TodoRecord[4];
+        int size;
+        int completed;
+
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        // position of the first todo with an id greater than id
+        int after(long id) {
+            int index = indexOf(id);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        // a snapshot or log entry, replaces the todo if it is already there
+        void put(TodoRecord record) {
+            int index = indexOf(record.id());
+            if (index >= 0) {
+                set(index, record, null);
+            } else {
+                add(record, null);
+            }
+        }
+
+        TodoRecord add(TodoRecord record, Changes changes) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                records = Arrays.copyOf(records, size * 2);
+            }
+            // new ids are the highest so far, only replay in odd order takes the shifting path
+            int index = size == 0 || ids[size - 1] < record.id() ? size : after(record.id());
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(records, index, records, index + 1, size - index);
+            ids[index] = record.id();
+            records[index] = record;
+            size++;
+            if (record.completed()) {
+                completed++;
+            }
+            if (changes != null) {
+                changes.put(record.id(), null, record);
+            }
+            return record;
+        }
+
+        void set(int index, TodoRecord record, Changes changes) {
+            if (changes != null) {
+                changes.put(record.id(), records[index], record);
+            }
+            if (records[index].completed() != record.completed()) {
+                completed += record.completed() ? 1 : -1;
+            }
+            records[index] = record;
+        }
+
+        void remove(int index, Changes changes) {
+            if (changes != null) {
+                changes.delete(records[index]);
+            }
+            if (records[index].completed()) {
+                completed--;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(records, index + 1, records, index, size - index - 1);
+            size--;
+            records[size] = null;
+        }
+
+        List<Todo> toTodos(String email, int from, int to, Boolean completed) {
+            List<Todo> todos = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                if (completed == null || records[i].completed() == completed) {
+                    todos.add(records[i].toTodo(email));
+                }
+            }
+            return todos;
+        }
+    }
+
+    /**
+     * The changes of one write: the batch for the log, and the previous state of every touched todo so the
+     * write can be taken back if the log refuses the batch.
+     */
+    private static final class Changes {
+
+        final TodoWriteAheadLog.Batch batch;
+        // per change the id and the record before it, null for a todo the write added
+        private final List<Long> ids = new ArrayList<>();
+        private final List<TodoRecord> before = new ArrayList<>();
+
+        Changes(TodoWriteAheadLog.Batch batch) {
+            this.batch = batch;
+        }
+
+        void put(long id, TodoRecord previous, TodoRecord record) {
+            batch.put(record);
+            ids.add(id);
+            before.add(previous);
+        }
+
+        void delete(TodoRecord previous) {
+            batch.delete(previous.id());
+            ids.add(previous.id());
+            before.add(previous);
+        }
+
+        // newest first, so a todo changed twice in one write ends up in its original state
+        void undo(UserTodos user) {
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                int index = user.indexOf(ids.get(i));
+                TodoRecord previous = before.get(i);
+                if (previous == null) {
+                    user.remove(index, null);
+                } else if (index >= 0) {
+                    user.set(index, previous, null);
+                } else {
+                    user.add(previous, null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package tools.muthuishere.todo.todo;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoCompletionCount;
+import tools.muthuishere.todo.todo.model.TodoDailyCount;
+import tools.muthuishere.todo.todo.model.TodoStats;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TodoStore on Hibernate through TodoRepository. Each write runs in its own transaction and takes its version
+ * after flushing, i.e. once it holds the row locks: a write that had to wait for another one's rows gets the
+ * higher version.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaTodoStore implements TodoStore {
+
+    private final TodoRepository todoRepository;
+    private final EntityManager entityManager;
+    private final AtomicLong versions = new AtomicLong();
+
+    @Override
+    public List<Todo> findAll(String email) {
+        return todoRepository.findByEmail(email);
+    }
+
+    @Override
+    public List<Todo> findByCompleted(String email, boolean completed) {
+        return todoRepository.findByEmailAndCompleted(email, completed);
+    }
+
+    @Override
+    public Optional<Todo> findById(String email, long id) {
+        return todoRepository.findByIdAndEmail(id, email);
+    }
+
+    @Override
+    public List<Todo> findPage(String email, long afterId, int limit) {
+        return todoRepository.findByEmailAndIdGreaterThanOrderByIdAsc(email, afterId, Limit.of(limit));
+    }
+
+    // Entities are detached as they are read so memory stays flat however many todos the user has
+    @Override
+    @Transactional(readOnly = true)
+    public void stream(String email, int chunkSize, Consumer<List<Todo>> chunkConsumer) {
+        List<Todo> chunk = new ArrayList<>(chunkSize);
+        try (Stream<Todo> todos = todoRepository.streamByEmail(email)) {
+            todos.forEach(todo -> {
+                entityManager.detach(todo);
+                chunk.add(todo);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk.clear();
+                }
+            });
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public List<TodoSummary> findSummaries(String email, Boolean completed) {
+        return completed == null
+                ? todoRepository.findSummariesByEmail(email)
+                : todoRepository.findSummariesByEmailAndCompleted(email, completed);
+    }
+
+    @Override
+    public long count(String email) {
+        return todoRepository.countByEmail(email);
+    }
+
+    @Override
+    public long count(String email, boolean completed) {
+        return todoRepository.countByEmailAndCompleted(email, completed);
+    }
+
+    // Aggregated by the database, read in one transaction so the numbers agree with each other
+    @Override
+    @Transactional(readOnly = true)
+    public TodoStats getStats(String email, LocalDate firstDay, int days) {
+        LocalDateTime since = firstDay.atStartOfDay();
+        long completed = 0;
+        long pending = 0;
+        for (TodoCompletionCount count : todoRepository.countByEmailGroupByCompleted(email)) {
+            if (count.isCompleted()) {
+                completed = count.getCount();
+            } else {
+                pending = count.getCount();
+            }
+        }
+        return TodoStats.builder()
+                .total(completed + pending)
+                .completed(completed)
+                .pending(pending)
+                .days(days)
+                .createdPerDay(perDay(firstDay, days, todoRepository.countCreatedPerDay(email, since)))
+                .updatedPerDay(perDay(firstDay, days, todoRepository.countUpdatedPerDay(email, since)))
+                .build();
+    }
+
+    // The queries only return days with activity, fill in the rest with zero
+    private static List<TodoDailyCount> perDay(LocalDate firstDay, int days, List<TodoDailyCount> counts) {
+        Map<LocalDate, Long> byDay = counts.stream()
+                .collect(Collectors.toMap(TodoDailyCount::getDay, TodoDailyCount::getCount));
+        List<TodoDailyCount> histogram = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            LocalDate day = firstDay.plusDays(i);
+            histogram.add(new TodoDailyCount(day, byDay.getOrDefault(day, 0L)));
+        }
+        return histogram;
+    }
+
+    @Override
+    @Transactional
+    public Versioned<Todo> insert(Todo todo) {
+        return versioned(todoRepository.save(todo));
+    }
+
+    // One transaction, inserts go out as JDBC batches
+    @Override
+    @Transactional
+    public Versioned<List<Todo>> insertAll(List<Todo> todos) {
+        return versioned(todoRepository.saveAll(todos));
+    }
+
+    // The updated entity is returned, so this one keeps select + update, but inside one transaction
+    // the loaded entity stays managed and save() doesn't re-select it for a merge
+    @Override
+    @Transactional
+    public Versioned<Optional<Todo>> update(String email, long id, String title, String description,
+                                            boolean completed, LocalDateTime updatedAt) {
+        return versioned(todoRepository.findByIdAndEmail(id, email).map(todo -> {
+            todo.setTitle(title);
+            todo.setDescription(description);
+            todo.setCompleted(completed);
+            todo.setUpdatedAt(updatedAt);
+            return todoRepository.save(todo);
+        }));
+    }
+
+    @Override
+    @Transactional
+    public Versioned<Boolean> setCompleted(String email, long id, boolean completed, LocalDateTime updatedAt) {
+        return versioned(todoRepository.updateCompletedByIdAndEmail(id, email, completed, updatedAt) > 0);
+    }
+
+    @Override
+    @Transactional
+    public Versioned<List<Long>> setCompleted(String email, Collection<Long> ids, boolean completed,
+                                              LocalDateTime updatedAt) {
+        if (ids.isEmpty()) {
+            return versioned(List.of());
+        }
+        List<Long> owned = todoRepository.findIdsByEmailAndIdIn(email, ids);
+        if (!owned.isEmpty()) {
+            todoRepository.updateCompletedByEmailAndIdIn(email, owned, completed, updatedAt);
+        }
+        return versioned(owned);
+    }
+
+    @Override
+    @Transactional
+    public Versioned<Boolean> delete(String email, long id) {
+        return versioned(todoRepository.deleteByIdAndEmail(id, email) > 0);
+    }
+
+    @Override
+    @Transactional
+    public Versioned<List<Long>> delete(String email, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return versioned(List.of());
+        }
+        List<Long> owned = todoRepository.findIdsByEmailAndIdIn(email, ids);
+        if (!owned.isEmpty()) {
+            todoRepository.deleteByEmailAndIdIn(email, owned);
+        }
+        return versioned(owned);
+    }
+
+    // Still inside the write's transaction: the flush takes the row locks, only then the version is drawn
+    private <T> Versioned<T> versioned(T value) {
+        entityManager.flush();
+        return new Versioned<>(value, versions.incrementAndGet());
+    }
+}
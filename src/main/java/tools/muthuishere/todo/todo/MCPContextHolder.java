@@ -5,28 +5,61 @@ import java.util.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
+import tools.muthuishere.todo.security.McpAuthenticationToken;
+import tools.muthuishere.todo.security.McpPrincipal;
 
 
-// works in any bean while on the request thread
+// works in any bean on a thread that carries the request's SecurityContext (request, virtual or decorated task thread)
 public final class MCPContextHolder {
     private MCPContextHolder() {}
 
-  public static String getEmail() {
-        return findEmail().orElseThrow(() -> 
-            new RuntimeException("No authenticated user found. Please authenticate with a valid Firebase JWT token."));
-  }
+    /**
+     * Thrown when a tool runs without an authenticated user. A single instance without stack trace,
+     * a missing user is an expected outcome and shouldn't cost an allocation.
+     */
+    public static final class NotAuthenticatedException extends RuntimeException {
+        private NotAuthenticatedException() {
+            super("No authenticated user found. Please authenticate with a valid Firebase JWT token.", null, false, false);
+        }
+    }
+
+    private static final NotAuthenticatedException NOT_AUTHENTICATED = new NotAuthenticatedException();
+
+    public static String getEmail() {
+        return getPrincipal().email();
+    }
+
+    public static McpPrincipal getPrincipal() {
+        McpPrincipal principal = currentPrincipal();
+        if (principal == null) {
+            throw NOT_AUTHENTICATED;
+        }
+        return principal;
+    }
 
     public static Optional<String> findEmail() {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof Jwt jwt) {
-                return Optional.ofNullable(jwt.getClaimAsString("email"));
-            }
-            return Optional.empty();
-        } catch (Exception e) {
-            return Optional.empty();
+        McpPrincipal principal = currentPrincipal();
+        return principal == null ? Optional.empty() : Optional.of(principal.email());
+    }
+
+    // null when there is no user with an email
+    private static McpPrincipal currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        McpPrincipal principal;
+        if (authentication instanceof McpAuthenticationToken token) {
+            principal = token.getMcpPrincipal();
+        } else if (authentication.getPrincipal() instanceof McpPrincipal mcpPrincipal) {
+            // the stdio transport's local user, see StdioPrincipalConfig
+            principal = mcpPrincipal;
+        } else if (authentication.getPrincipal() instanceof Jwt jwt) {
+            // tokens not created by McpAuthenticationConverter
+            principal = new McpPrincipal(jwt.getClaimAsString("email"), jwt.getSubject());
+        } else {
+            return null;
         }
+        return principal.email() == null ? null : principal;
     }
 }
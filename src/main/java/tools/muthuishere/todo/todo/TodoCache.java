@@ -0,0 +1,136 @@
+package tools.muthuishere.todo.todo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.todo.model.Todo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of todos, partitioned per email.
+ * <p>
+ * Each user gets a partition object holding the full list and single todos by id. A write drops the whole
+ * partition. A reader always stores into the partition it looked up before going to the database, so a load
+ * that races with a write lands in a partition that has already been dropped and is never served.
+ * Memory is bounded by users times (list + at most maxTodosPerUser single todos). Misses for unknown ids are
+ * not cached, so probing ids can't grow a partition.
+ * The cache keeps its own copies and hands out fresh ones, so like the store's results, returned todos are the
+ * caller's to modify.
+ */
+@Component
+public class TodoCache {
+
+    private static final class Partition {
+        volatile List<Todo> all;
+        final ConcurrentHashMap<Long, Optional<Todo>> byId = new ConcurrentHashMap<>();
+    }
+
+    private final boolean enabled;
+    private final int maxTodosPerUser;
+    private final Cache<String, Partition> partitions;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TodoCache(@Value("${todo.cache.enabled:true}") boolean enabled,
+                     @Value("${todo.cache.max-users:10000}") long maxUsers,
+                     @Value("${todo.cache.max-todos-per-user:1000}") int maxTodosPerUser,
+                     @Value("${todo.cache.ttl:PT5M}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxTodosPerUser = maxTodosPerUser;
+        this.partitions = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public List<Todo> getAll(String email, Supplier<List<Todo>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Partition partition = partitions.get(email, key -> new Partition());
+        List<Todo> todos = partition.all;
+        if (todos != null) {
+            hits.increment();
+            return copies(todos);
+        }
+        misses.increment();
+        todos = loader.get();
+        partition.all = copies(todos);
+        return todos;
+    }
+
+    public Optional<Todo> get(String email, Long id, Supplier<Optional<Todo>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Partition partition = partitions.get(email, key -> new Partition());
+        Optional<Todo> todo = partition.byId.get(id);
+        if (todo != null) {
+            hits.increment();
+            return todo.map(TodoCache::copy);
+        }
+        misses.increment();
+        todo = loader.get();
+        if (todo.isPresent() && partition.byId.size() < maxTodosPerUser) {
+            partition.byId.put(id, todo.map(TodoCache::copy));
+        }
+        return todo;
+    }
+
+    public void invalidate(String email) {
+        if (enabled) {
+            partitions.invalidate(email);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    public long getPartitionCount() {
+        return partitions.estimatedSize();
+    }
+
+    private static List<Todo> copies(List<Todo> todos) {
+        return todos.stream().map(TodoCache::copy).toList();
+    }
+
+    private static Todo copy(Todo todo) {
+        return Todo.builder()
+                .id(todo.getId())
+                .title(todo.getTitle())
+                .description(todo.getDescription())
+                .completed(todo.isCompleted())
+                .email(todo.getEmail())
+                .createdAt(todo.getCreatedAt())
+                .updatedAt(todo.getUpdatedAt())
+                .build();
+    }
+
+    // partition level stats, evictionCount() shows how often the size bound or TTL kicked in
+    public CacheStats getPartitionStats() {
+        return partitions.stats();
+    }
+}
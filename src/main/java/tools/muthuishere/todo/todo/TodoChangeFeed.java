@@ -0,0 +1,370 @@
+package tools.muthuishere.todo.todo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.cluster.ChangeNotification;
+import tools.muthuishere.todo.cluster.ChangeNotificationBus;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoChange;
+import tools.muthuishere.todo.todo.model.TodoChangeBatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Feed of committed todo changes per user, published by TodoService once the store has committed the write,
+ * or within the write's transaction when the bus records changes in the store's database.
+ * <p>
+ * Changes travel through the ChangeNotificationBus, also those made on this node, so subscribers here see
+ * writes made on any node, and every change carries the bus's cluster-wide sequence. In a cluster every change
+ * is published, with or without subscribers, so a subscription can be resumed from a sequence later, on any
+ * node, as long as the bus still retains the changes after it. Without a cluster, changes of users nobody
+ * subscribed to are not published at all, and a resume from before such a change starts with resync.
+ * <p>
+ * Writes arrive with the store's version. Two writes of a user published concurrently can reach the bus in the
+ * opposite order, then the user's subscribers here are asked to resync rather than end on the older state.
+ * <p>
+ * Every subscriber has its own bounded buffer. Changes to the same todo are coalesced, only the latest is kept.
+ * When a slow subscriber has more distinct todos pending than the buffer holds, the buffer is dropped
+ * and its next batch says resync, publishers never wait for subscribers.
+ */
+@Component
+public class TodoChangeFeed {
+
+    // sequences a subscription remembers above its cursor, more and it resyncs instead
+    private static final int MAX_SEEN = 10_000;
+
+    private final int bufferSize;
+    private final int maxSubscriptionsPerUser;
+    private final ChangeNotificationBus bus;
+    private final ConcurrentHashMap<String, Subscribers> subscriptions = new ConcurrentHashMap<>();
+    // contiguous sequence when a change was last left unpublished, resumes from up to there can't be trusted
+    private final AtomicLong unpublishedAt = new AtomicLong(-1);
+
+    public TodoChangeFeed(@Value("${todo.changes.buffer-size:256}") int bufferSize,
+                          @Value("${todo.changes.max-subscriptions-per-user:8}") int maxSubscriptionsPerUser,
+                          ChangeNotificationBus bus) {
+        this.bufferSize = bufferSize;
+        this.maxSubscriptionsPerUser = maxSubscriptionsPerUser;
+        this.bus = bus;
+        bus.subscribe(this::deliver);
+    }
+
+    /**
+     * Created or updated todos, delivered with their new state. version is the store's version of the write.
+     */
+    public void publish(String email, long version, TodoChange.Type type, Collection<Todo> todos) {
+        if (unobserved(email)) {
+            return;
+        }
+        List<ChangeNotification> changes = todos.stream()
+                .map(todo -> new ChangeNotification(0, bus.getNodeId(), email, type, todo.getId(), copy(todo)))
+                .toList();
+        publish(email, version, changes);
+    }
+
+    /**
+     * Completion toggles and deletes, delivered as ids only.
+     */
+    public void publishIds(String email, long version, TodoChange.Type type, Collection<Long> ids) {
+        if (unobserved(email)) {
+            return;
+        }
+        List<ChangeNotification> changes = ids.stream()
+                .map(id -> new ChangeNotification(0, bus.getNodeId(), email, type, id, null))
+                .toList();
+        publish(email, version, changes);
+    }
+
+    /**
+     * Runs a store write that publishes its changes from inside, in one transaction when the bus keeps
+     * changes in the store's database.
+     */
+    public <T> T inTransaction(Supplier<T> write) {
+        return bus.inTransaction(write);
+    }
+
+    // A newer write notes its version before it reaches the bus, so one that finds a newer version noted after
+    // its own publish may have been overtaken
+    private void publish(String email, long version, List<ChangeNotification> changes) {
+        Subscribers subscribers = subscriptions.get(email);
+        if (subscribers != null) {
+            subscribers.version.accumulateAndGet(version, Math::max);
+        }
+        bus.publish(changes);
+        if (subscribers != null && subscribers.version.get() > version) {
+            long contiguous = bus.getContiguousSequence();
+            subscribers.forEach(subscription -> subscription.resyncFrom(contiguous));
+        }
+    }
+
+    // no cluster and no subscribers, no work
+    private boolean unobserved(String email) {
+        if (bus.isClustered() || subscriptions.containsKey(email)) {
+            return false;
+        }
+        long contiguous = bus.getContiguousSequence();
+        if (unpublishedAt.get() < contiguous) {
+            unpublishedAt.accumulateAndGet(contiguous, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * The oldest subscription of the user is closed when this one exceeds the per-user limit.
+     */
+    public Subscription subscribe(String email) {
+        Subscription subscription = new Subscription(email, bus.getContiguousSequence(), true);
+        register(subscription);
+        return subscription;
+    }
+
+    /**
+     * Continues after the change with sequence cursor, i.e. where an earlier subscription of the same consumer
+     * stopped, possibly on another node. Starts with resync when those changes are no longer retained.
+     */
+    public Subscription resume(String email, long cursor) {
+        Subscription subscription = new Subscription(email, cursor, false);
+        // registered first, so changes published meanwhile are either replayed or delivered, duplicates are skipped
+        register(subscription);
+        Optional<List<ChangeNotification>> missed = cursor <= unpublishedAt.get()
+                ? Optional.empty()
+                : bus.since(email, cursor);
+        if (missed.isPresent()) {
+            subscription.replay(missed.get());
+        } else {
+            subscription.resyncFrom(bus.getContiguousSequence());
+        }
+        return subscription;
+    }
+
+    private void register(Subscription subscription) {
+        String email = subscription.email;
+        List<Subscription> evicted = new ArrayList<>();
+        subscriptions.compute(email, (key, userSubscriptions) -> {
+            Subscribers updated = userSubscriptions == null ? new Subscribers() : userSubscriptions;
+            updated.add(subscription);
+            while (updated.size() > maxSubscriptionsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            return updated;
+        });
+        evicted.forEach(Subscription::close);
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void deliver(ChangeNotification notification) {
+        Subscribers userSubscriptions = subscriptions.get(notification.email());
+        if (userSubscriptions == null) {
+            return;
+        }
+        TodoChange change = toChange(notification);
+        userSubscriptions.forEach(subscription -> subscription.offer(change));
+    }
+
+    private static TodoChange toChange(ChangeNotification notification) {
+        return TodoChange.builder()
+                .sequence(notification.sequence())
+                .type(notification.type())
+                .todoId(notification.todoId())
+                .todo(notification.todo())
+                .at(LocalDateTime.now())
+                .build();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.email, (email, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+
+    /**
+     * A user's subscriptions on this node, with the newest store version published for the user meanwhile.
+     */
+    private static final class Subscribers extends CopyOnWriteArrayList<Subscription> {
+        final AtomicLong version = new AtomicLong();
+    }
+
+    private static Todo copy(Todo todo) {
+        return Todo.builder()
+                .id(todo.getId())
+                .title(todo.getTitle())
+                .description(todo.getDescription())
+                .completed(todo.isCompleted())
+                .email(todo.getEmail())
+                .createdAt(todo.getCreatedAt())
+                .updatedAt(todo.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * One consumer's view of the feed. A new subscription starts with resync, since it has seen nothing yet.
+     * The cursor is the sequence up to which the consumer has seen every change of its user. It only moves up
+     * to the bus's contiguous sequence, changes above it that were already handed out are remembered by sequence,
+     * so a change committed late behind them is still delivered, and delivered once.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String email;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        // latest change per todo id, in order of the latest change
+        private final LinkedHashMap<Long, TodoChange> pending = new LinkedHashMap<>();
+        // sequence -> todo id of the changes above the cursor already taken in
+        private final TreeMap<Long, Long> seen = new TreeMap<>();
+        // todo id -> its latest sequence in seen, older states arriving late are dropped
+        private final Map<Long, Long> latest = new HashMap<>();
+        private boolean resync;
+        private boolean closed;
+        private long cursor;
+        // the consumer's last refetch covers every change up to here
+        private long refetched;
+
+        private Subscription(String email, long cursor, boolean resync) {
+            this.email = email;
+            this.cursor = cursor;
+            this.resync = resync;
+        }
+
+        void replay(List<ChangeNotification> missed) {
+            missed.forEach(notification -> offer(toChange(notification)));
+        }
+
+        void resyncFrom(long sequence) {
+            lock.lock();
+            try {
+                pending.clear();
+                resync = true;
+                advanceCursor(sequence);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void offer(TodoChange change) {
+            lock.lock();
+            try {
+                long sequence = change.getSequence();
+                if (closed || resync || sequence <= Math.max(cursor, refetched) || seen.containsKey(sequence)) {
+                    // the consumer refetches everything on its next poll anyway, or has seen it already
+                    return;
+                }
+                Long newer = latest.get(change.getTodoId());
+                if (newer != null && newer > sequence) {
+                    // overtaken by a later change of the same todo, replayed or committed late
+                    return;
+                }
+                pending.remove(change.getTodoId());
+                if (pending.size() >= bufferSize || seen.size() >= MAX_SEEN) {
+                    // too far behind, the consumer refetches instead
+                    pending.clear();
+                    resync = true;
+                } else {
+                    pending.put(change.getTodoId(), change);
+                    seen.put(sequence, change.getTodoId());
+                    latest.put(change.getTodoId(), sequence);
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits up to wait for changes and returns everything pending, an empty batch on timeout or close.
+         */
+        public TodoChangeBatch poll(Duration wait) throws InterruptedException {
+            lock.lock();
+            try {
+                long nanos = wait.toNanos();
+                while (!closed && !resync && pending.isEmpty() && nanos > 0) {
+                    nanos = changed.awaitNanos(nanos);
+                }
+                if (resync) {
+                    // every change delivered so far was committed before the refetch, late ones included
+                    refetched = Math.max(refetched, bus.getLastSequence());
+                    seen.clear();
+                    latest.clear();
+                }
+                // every change up to the contiguous sequence has been offered, above it one can still come late
+                advanceCursor(bus.getContiguousSequence());
+                List<TodoChange> changes = new ArrayList<>(pending.values());
+                // replayed changes can arrive after live ones
+                changes.sort(Comparator.comparingLong(TodoChange::getSequence));
+                TodoChangeBatch batch = TodoChangeBatch.builder()
+                        .changes(changes)
+                        .resync(resync)
+                        .cursor(cursor)
+                        .build();
+                pending.clear();
+                resync = false;
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void advanceCursor(long contiguous) {
+            if (contiguous <= cursor) {
+                return;
+            }
+            cursor = contiguous;
+            Map<Long, Long> passed = seen.headMap(cursor, true);
+            passed.forEach((sequence, todoId) -> latest.remove(todoId, sequence));
+            passed.clear();
+        }
+
+        public long getCursor() {
+            lock.lock();
+            try {
+                return cursor;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package tools.muthuishere.todo.todo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.cluster.McpSessionState;
+import tools.muthuishere.todo.cluster.SessionStateStore;
+import tools.muthuishere.todo.todo.model.TodoChangeBatch;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change notifications for the session based HTTP transports, so agents don't have to poll fetch-all-todos.
+ * watch-todos long-polls, subscribe-todo-changes pushes every batch as a log message notification.
+ * Subscriptions belong to the MCP session that created them. How far a session's watch-todos calls have read
+ * is kept in the SessionStateStore, so a node that has no subscription for the session (it was evicted, or the
+ * session's previous calls went to another node) resumes where the session stopped instead of asking to resync.
+ */
+@Slf4j
+@Component
+@Profile({"sse", "streamable"})
+public class TodoChangeTools {
+
+    static final int MAX_WAIT_SECONDS = 30;
+    static final String NOTIFICATION_LOGGER = "todo-changes";
+
+    private final TodoChangeFeed changeFeed;
+    private final ObjectMapper objectMapper;
+    private final SessionStateStore sessionStates;
+    // long-poll subscriptions of sessions that stopped calling watch-todos are dropped after a while
+    private final Cache<String, TodoChangeFeed.Subscription> polling = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .<String, TodoChangeFeed.Subscription>removalListener((key, subscription, cause) -> {
+                if (subscription != null) {
+                    subscription.close();
+                }
+            })
+            .build();
+    private final ConcurrentHashMap<String, TodoChangeFeed.Subscription> pushing = new ConcurrentHashMap<>();
+
+    public TodoChangeTools(TodoChangeFeed changeFeed, ObjectMapper objectMapper, SessionStateStore sessionStates) {
+        this.changeFeed = changeFeed;
+        this.objectMapper = objectMapper;
+        this.sessionStates = sessionStates;
+    }
+
+    @McpTool(name = "watch-todos", description = "Waits for changes to the Todo items and returns them. "
+            + "The first call and any call with resync=true mean: fetch the todos again, then keep calling this")
+    public TodoChangeBatch watchTodos(
+            McpSyncServerExchange exchange,
+
+            @McpToolParam(description = "Seconds to wait for a change (0-30, default 25)", required = false)
+            Integer waitSeconds,
+
+            @McpToolParam(description = "cursor of the previous batch, to continue from there in a new session", required = false)
+            Long cursor
+    ) {
+        String email = MCPContextHolder.getEmail();
+        String key = sessionKey(email, exchange);
+        TodoChangeFeed.Subscription subscription = polling.getIfPresent(key);
+        if (subscription == null || subscription.isClosed()
+                || (cursor != null && cursor != subscription.getCursor())) {
+            // none here yet, evicted by a newer subscription of the same user, or the caller moved its cursor
+            polling.invalidate(key);
+            Long from = cursor != null ? cursor : sessionStates.find(exchange.sessionId())
+                    .filter(state -> state.email().equals(email))
+                    .map(McpSessionState::changeCursor)
+                    .orElse(null);
+            subscription = from == null ? changeFeed.subscribe(email) : changeFeed.resume(email, from);
+            polling.put(key, subscription);
+        }
+        int wait = Math.max(0, Math.min(waitSeconds == null ? 25 : waitSeconds, MAX_WAIT_SECONDS));
+        try {
+            TodoChangeBatch batch = subscription.poll(Duration.ofSeconds(wait));
+            sessionStates.save(new McpSessionState(exchange.sessionId(), email, batch.getCursor()));
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TodoChangeBatch.builder().changes(List.of()).resync(false).cursor(subscription.getCursor()).build();
+        }
+    }
+
+    @McpTool(name = "subscribe-todo-changes", description = "Sends changes to the Todo items as they happen, "
+            + "as log notifications with logger todo-changes. The first one asks to fetch the todos again")
+    public String subscribeTodoChanges(McpSyncServerExchange exchange) {
+        String email = MCPContextHolder.getEmail();
+        String key = sessionKey(email, exchange);
+        TodoChangeFeed.Subscription current = pushing.get(key);
+        if (current != null && !current.isClosed()) {
+            return "Already subscribed";
+        }
+        TodoChangeFeed.Subscription subscription = changeFeed.subscribe(email);
+        pushing.put(key, subscription);
+        Thread.ofVirtual().name("todo-changes-push").start(() -> push(key, exchange, subscription));
+        return "Subscribed, changes arrive as notifications from logger " + NOTIFICATION_LOGGER;
+    }
+
+    @McpTool(name = "unsubscribe-todo-changes", description = "Stops the notifications started by subscribe-todo-changes")
+    public boolean unsubscribeTodoChanges(McpSyncServerExchange exchange) {
+        String email = MCPContextHolder.getEmail();
+        TodoChangeFeed.Subscription subscription = pushing.remove(sessionKey(email, exchange));
+        if (subscription == null) {
+            return false;
+        }
+        subscription.close();
+        return true;
+    }
+
+    // Ends when the subscription is closed or the session can't be reached any more. A session closed without
+    // an error only shows when something is sent to it, so a quiet one is pinged, and its entry is dropped once
+    // the ping fails
+    private void push(String key, McpSyncServerExchange exchange, TodoChangeFeed.Subscription subscription) {
+        try {
+            while (!subscription.isClosed()) {
+                TodoChangeBatch batch = subscription.poll(Duration.ofSeconds(MAX_WAIT_SECONDS));
+                if (batch.isEmpty()) {
+                    if (!subscription.isClosed()) {
+                        exchange.ping();
+                    }
+                    continue;
+                }
+                exchange.loggingNotification(McpSchema.LoggingMessageNotification.builder()
+                        .level(McpSchema.LoggingLevel.INFO)
+                        .logger(NOTIFICATION_LOGGER)
+                        .data(objectMapper.writeValueAsString(batch))
+                        .build());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.debug("Stopped pushing todo changes for session {}", exchange.sessionId(), e);
+        } finally {
+            subscription.close();
+            pushing.remove(key, subscription);
+        }
+    }
+
+    private static String sessionKey(String email, McpSyncServerExchange exchange) {
+        return email + '|' + exchange.sessionId();
+    }
+}
@@ -0,0 +1,58 @@
+package tools.muthuishere.todo.todo;
+
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Compact, immutable form of a Todo kept by InMemoryTodoStore. The email is left out because records are
+ * stored per owner, and timestamps are UTC epoch microseconds instead of two LocalDateTime objects each.
+ */
+record TodoRecord(long id, String title, String description, boolean completed, long createdAt, long updatedAt) {
+
+    static final long NO_TIME = Long.MIN_VALUE;
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    static TodoRecord of(long id, Todo todo) {
+        return new TodoRecord(id, todo.getTitle(), todo.getDescription(), todo.isCompleted(),
+                micros(todo.getCreatedAt()), micros(todo.getUpdatedAt()));
+    }
+
+    TodoRecord withContent(String title, String description, boolean completed, long updatedAt) {
+        return new TodoRecord(id, title, description, completed, createdAt, updatedAt);
+    }
+
+    TodoRecord withCompleted(boolean completed, long updatedAt) {
+        return new TodoRecord(id, title, description, completed, createdAt, updatedAt);
+    }
+
+    Todo toTodo(String email) {
+        return new Todo(id, title, description, completed, email, dateTime(createdAt), dateTime(updatedAt));
+    }
+
+    TodoSummary toSummary() {
+        return new TodoSummary(id, title, completed);
+    }
+
+    static long micros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_TIME;
+        }
+        return ChronoUnit.MICROS.between(Instant.EPOCH, dateTime.toInstant(ZoneOffset.UTC));
+    }
+
+    static LocalDateTime dateTime(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneOffset.UTC);
+    }
+
+    static long epochDay(long micros) {
+        return Math.floorDiv(micros, MICROS_PER_DAY);
+    }
+}
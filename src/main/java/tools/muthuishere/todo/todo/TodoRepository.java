@@ -1,11 +1,25 @@
 package tools.muthuishere.todo.todo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoCompletionCount;
+import tools.muthuishere.todo.todo.model.TodoDailyCount;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TodoRepository extends JpaRepository<Todo, Long> {
@@ -18,4 +32,70 @@ public interface TodoRepository extends JpaRepository<Todo, Long> {
     List<Todo> findByEmailAndCompleted(String email, boolean completed);
     
     long countByEmail(String email);
+
+    long countByEmailAndCompleted(String email, boolean completed);
+
+    // Projections select only id/title/completed, no entity is loaded into the persistence context
+    @Query("select new tools.muthuishere.todo.todo.model.TodoSummary(t.id, t.title, t.completed) "
+            + "from Todo t where t.email = :email order by t.id")
+    List<TodoSummary> findSummariesByEmail(@Param("email") String email);
+
+    @Query("select new tools.muthuishere.todo.todo.model.TodoSummary(t.id, t.title, t.completed) "
+            + "from Todo t where t.email = :email and t.completed = :completed order by t.id")
+    List<TodoSummary> findSummariesByEmailAndCompleted(@Param("email") String email,
+                                                       @Param("completed") boolean completed);
+
+    // Aggregates for todo-stats, computed by the database, no rows are returned
+    @Query("select new tools.muthuishere.todo.todo.model.TodoCompletionCount(t.completed, count(t)) "
+            + "from Todo t where t.email = :email group by t.completed")
+    List<TodoCompletionCount> countByEmailGroupByCompleted(@Param("email") String email);
+
+    @Query("select new tools.muthuishere.todo.todo.model.TodoDailyCount(cast(t.createdAt as LocalDate), count(t)) "
+            + "from Todo t where t.email = :email and t.createdAt >= :since "
+            + "group by cast(t.createdAt as LocalDate) order by cast(t.createdAt as LocalDate)")
+    List<TodoDailyCount> countCreatedPerDay(@Param("email") String email, @Param("since") LocalDateTime since);
+
+    @Query("select new tools.muthuishere.todo.todo.model.TodoDailyCount(cast(t.updatedAt as LocalDate), count(t)) "
+            + "from Todo t where t.email = :email and t.updatedAt >= :since "
+            + "group by cast(t.updatedAt as LocalDate) order by cast(t.updatedAt as LocalDate)")
+    List<TodoDailyCount> countUpdatedPerDay(@Param("email") String email, @Param("since") LocalDateTime since);
+
+    // Keyset pagination, next page starts after the last id of the previous one
+    List<Todo> findByEmailAndIdGreaterThanOrderByIdAsc(String email, Long afterId, Limit limit);
+
+    // Streams rows with a JDBC fetch size instead of loading the whole list, needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Todo t where t.email = :email order by t.id")
+    Stream<Todo> streamByEmail(@Param("email") String email);
+
+    // Single statement writes scoped to the owner, return the number of affected rows (0 = missing or not yours)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Todo t set t.completed = :completed, t.updatedAt = :updatedAt "
+            + "where t.id = :id and t.email = :email")
+    int updateCompletedByIdAndEmail(@Param("id") Long id, @Param("email") String email,
+                                    @Param("completed") boolean completed,
+                                    @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Todo t where t.id = :id and t.email = :email")
+    int deleteByIdAndEmail(@Param("id") Long id, @Param("email") String email);
+
+    // Batch variants, one statement for the whole id list
+    @Query("select t.id from Todo t where t.email = :email and t.id in :ids")
+    List<Long> findIdsByEmailAndIdIn(@Param("email") String email, @Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Todo t set t.completed = :completed, t.updatedAt = :updatedAt "
+            + "where t.email = :email and t.id in :ids")
+    int updateCompletedByEmailAndIdIn(@Param("email") String email, @Param("ids") Collection<Long> ids,
+                                      @Param("completed") boolean completed,
+                                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Todo t where t.email = :email and t.id in :ids")
+    int deleteByEmailAndIdIn(@Param("email") String email, @Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,56 @@
+package tools.muthuishere.todo.todo;
+
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import lombok.RequiredArgsConstructor;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.sampling.SamplingResult;
+import tools.muthuishere.todo.sampling.SamplingService;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.util.List;
+
+/**
+ * Tools that ask the client's LLM through sampling, which needs a session (not available in the stateless profile).
+ */
+@Component
+@Profile("!stateless")
+@RequiredArgsConstructor
+public class TodoSamplingTools {
+
+    static final int MAX_SUMMARIZED_TODOS = 200;
+
+    private static final String SUMMARY_PROMPT = "You summarise a user's todo list in a few sentences: "
+            + "what is done, what is still open and what looks most urgent.";
+
+    private final TodoService todoService;
+    private final SamplingService samplingService;
+
+    @McpTool(name = "summarize-todos", description = "Summarises the Todo items using the client's model (needs sampling support)")
+    public String summarizeTodos(McpSyncServerExchange exchange) {
+        String email = MCPContextHolder.getEmail();
+        List<TodoSummary> todos = todoService.getTodoSummaries(email, null);
+        if (todos.isEmpty()) {
+            return "There are no todos to summarise.";
+        }
+
+        StringBuilder content = new StringBuilder();
+        todos.stream().limit(MAX_SUMMARIZED_TODOS).forEach(todo -> content
+                .append(todo.isCompleted() ? "- [x] " : "- [ ] ")
+                .append(todo.getTitle())
+                .append('\n'));
+        if (todos.size() > MAX_SUMMARIZED_TODOS) {
+            content.append("(").append(todos.size() - MAX_SUMMARIZED_TODOS).append(" more not shown)\n");
+        }
+
+        return switch (samplingService.sample(exchange, email, SUMMARY_PROMPT, content.toString())) {
+            case SamplingResult.Success success -> success.text();
+            case SamplingResult.Unsupported unsupported -> "The client does not support sampling.";
+            case SamplingResult.Rejected rejected -> "Summary not available right now: " + rejected.reason();
+            case SamplingResult.TimedOut timedOut -> "The client did not answer within " + timedOut.timeout().toSeconds() + "s.";
+            case SamplingResult.NonText nonText -> "The client answered with " + nonText.contentType() + " content instead of text.";
+            case SamplingResult.Failed failed -> "Summary failed: " + failed.message();
+        };
+    }
+}
@@ -0,0 +1,346 @@
+package tools.muthuishere.todo.todo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoSearchHit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-process inverted index over todo titles and descriptions, one partition per email.
+ * <p>
+ * A partition is built from the database on the user's first search and then kept up to date by
+ * {@link #put}, {@link #remove} and {@link #setCompleted}, which TodoService calls on every write.
+ * TodoService calls them once the store has committed the write, so a rolled back write never shows up in results.
+ * Every update carries the store's version of its write. Concurrent writes can arrive in another order than
+ * the store applied them, so an update older than the newest one the partition has seen drops the index
+ * instead of applying a stale state, the next search rebuilds it from the store.
+ * Idle or surplus partitions are dropped and rebuilt on the next search.
+ * <p>
+ * Ranking is BM25-style idf per matched term, a title match counts {@link #TITLE_BOOST} times a description match.
+ */
+@Component
+public class TodoSearchIndex {
+
+    static final double TITLE_BOOST = 2.0;
+
+    private static final int IN_TITLE = 1;
+    private static final int IN_DESCRIPTION = 2;
+    // postings carry the field bits in the low two bits of the slot
+    private static final int FIELD_BITS = 2;
+    // rebuilding a partition that keeps changing under the builder is retried this often
+    private static final int BUILD_ATTEMPTS = 3;
+
+    private final Cache<String, Partition> partitions;
+    // newest version any update carried, a partition built now has every write up to it in its rows
+    private final AtomicLong newestVersion = new AtomicLong();
+
+    public TodoSearchIndex(@Value("${todo.search.max-users:1000}") long maxUsers,
+                           @Value("${todo.search.idle-ttl:PT30M}") Duration idleTtl) {
+        this.partitions = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTtl)
+                .build();
+    }
+
+    /**
+     * Top limit todos of the user matching any word of the query, best first.
+     *
+     * @param completed only completed (true) or pending (false) todos, null for all
+     * @param loader    all todos of the user, used when the partition has to be built
+     */
+    public List<TodoSearchHit> search(String email, String query, Boolean completed, int limit,
+                                      Supplier<List<Todo>> loader) {
+        List<String> terms = List.copyOf(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Partition partition = partitions.get(email, key -> new Partition());
+        partition.lock.readLock().lock();
+        try {
+            if (partition.index != null) {
+                return partition.index.search(terms, completed, limit);
+            }
+        } finally {
+            partition.lock.readLock().unlock();
+        }
+        return build(partition, loader).search(terms, completed, limit);
+    }
+
+    // Loads outside the lock and installs the result only if no write arrived meanwhile,
+    // otherwise the write could be missing from the loaded rows
+    private Index build(Partition partition, Supplier<List<Todo>> loader) {
+        Index built = null;
+        for (int attempt = 0; attempt < BUILD_ATTEMPTS; attempt++) {
+            long writes;
+            long version;
+            partition.lock.readLock().lock();
+            try {
+                if (partition.index != null) {
+                    return partition.index;
+                }
+                writes = partition.writes;
+                version = newestVersion.get();
+            } finally {
+                partition.lock.readLock().unlock();
+            }
+            built = new Index();
+            for (Todo todo : loader.get()) {
+                built.put(todo);
+            }
+            partition.lock.writeLock().lock();
+            try {
+                if (partition.writes == writes) {
+                    partition.index = built;
+                    // a late update of a write the rows already have would otherwise be applied over newer ones
+                    partition.version = Math.max(partition.version, version);
+                    return built;
+                }
+            } finally {
+                partition.lock.writeLock().unlock();
+            }
+        }
+        // still answers from a consistent snapshot, the next search tries to install again
+        return built;
+    }
+
+    /**
+     * Adds or replaces these todos in the user's partition, version is the store's version of the write.
+     */
+    public void put(String email, long version, Collection<Todo> todos) {
+        List<Todo> copies = todos.stream().map(TodoSearchIndex::copy).toList();
+        apply(email, version, index -> copies.forEach(index::put));
+    }
+
+    public void remove(String email, long version, Collection<Long> ids) {
+        List<Long> removed = List.copyOf(ids);
+        apply(email, version, index -> removed.forEach(index::remove));
+    }
+
+    public void setCompleted(String email, long version, Collection<Long> ids, boolean completed) {
+        List<Long> changed = List.copyOf(ids);
+        apply(email, version, index -> changed.forEach(id -> index.setCompleted(id, completed)));
+    }
+
+    public void invalidate(String email) {
+        partitions.invalidate(email);
+    }
+
+    public long getPartitionCount() {
+        return partitions.estimatedSize();
+    }
+
+    private void apply(String email, long version, Consumer<Index> change) {
+        // before the partition lookup, so a build that starts later counts this write as loaded
+        newestVersion.accumulateAndGet(version, Math::max);
+        Partition partition = partitions.getIfPresent(email);
+        if (partition == null) {
+            return;
+        }
+        partition.lock.writeLock().lock();
+        try {
+            partition.writes++;
+            if (version <= partition.version) {
+                // overtaken by a newer write of the user, whose todos this one may have touched too
+                partition.index = null;
+            } else {
+                partition.version = version;
+                if (partition.index != null) {
+                    change.accept(partition.index);
+                }
+            }
+        } finally {
+            partition.lock.writeLock().unlock();
+        }
+    }
+
+    // Only the indexed fields, the caller may keep changing its entity
+    private static Todo copy(Todo todo) {
+        return Todo.builder()
+                .id(todo.getId())
+                .title(todo.getTitle())
+                .description(todo.getDescription())
+                .completed(todo.isCompleted())
+                .build();
+    }
+
+    /**
+     * Lower-cased runs of letters and digits, duplicates removed.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Partition {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        Index index;
+        long writes;
+        // newest store version applied or loaded
+        long version;
+    }
+
+    /**
+     * Documents live in slots, a replaced or removed todo leaves an empty slot behind that postings
+     * still point to until the next compaction. Not thread safe, guarded by the partition lock.
+     */
+    static final class Index {
+
+        private Todo[] docs = new Todo[64];
+        private int slots;
+        private int live;
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        void put(Todo todo) {
+            remove(todo.getId());
+            if (slots == docs.length) {
+                docs = Arrays.copyOf(docs, slots * 2);
+            }
+            int slot = slots++;
+            docs[slot] = todo;
+            slotById.put(todo.getId(), slot);
+            live++;
+
+            Map<String, Integer> fields = new HashMap<>();
+            tokenize(todo.getTitle()).forEach(term -> fields.merge(term, IN_TITLE, (a, b) -> a | b));
+            tokenize(todo.getDescription()).forEach(term -> fields.merge(term, IN_DESCRIPTION, (a, b) -> a | b));
+            fields.forEach((term, bits) ->
+                    postings.computeIfAbsent(term, key -> new Postings()).add(slot << FIELD_BITS | bits));
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            docs[slot] = null;
+            live--;
+            if (slots - live > Math.max(1024, live)) {
+                compact();
+            }
+        }
+
+        void setCompleted(Long id, boolean completed) {
+            Integer slot = slotById.get(id);
+            if (slot != null) {
+                docs[slot].setCompleted(completed);
+            }
+        }
+
+        int size() {
+            return live;
+        }
+
+        List<TodoSearchHit> search(List<String> terms, Boolean completed, int limit) {
+            float[] scores = new float[slots];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // postings still count removed slots until compaction, close enough for ranking
+                int df = Math.min(list.size, live);
+                double idf = Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int entry = list.entries[i];
+                    int slot = entry >>> FIELD_BITS;
+                    Todo doc = docs[slot];
+                    if (doc == null || (completed != null && doc.isCompleted() != completed)) {
+                        continue;
+                    }
+                    double weight = ((entry & IN_TITLE) != 0 ? TITLE_BOOST : 0)
+                            + ((entry & IN_DESCRIPTION) != 0 ? 1 : 0);
+                    if (scores[slot] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = slot;
+                    }
+                    scores[slot] += (float) (idf * weight);
+                }
+            }
+
+            // min-heap of the best limit slots, ties go to the older todo
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(limit, touchedCount) + 1,
+                    (a, b) -> scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int i = 0; i < touchedCount; i++) {
+                top.add(touched[i]);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<TodoSearchHit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int slot = top.poll();
+                Todo doc = docs[slot];
+                hits.add(TodoSearchHit.builder()
+                        .id(doc.getId())
+                        .title(doc.getTitle())
+                        .description(doc.getDescription())
+                        .completed(doc.isCompleted())
+                        .score(scores[slot])
+                        .build());
+            }
+            return hits.reversed();
+        }
+
+        private void compact() {
+            Todo[] current = Arrays.copyOf(docs, slots);
+            docs = new Todo[Math.max(64, live * 2)];
+            slots = 0;
+            live = 0;
+            slotById.clear();
+            postings.clear();
+            for (Todo todo : current) {
+                if (todo != null) {
+                    put(todo);
+                }
+            }
+        }
+    }
+
+    private static final class Postings {
+        int[] entries = new int[4];
+        int size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+    }
+}
@@ -1,78 +1,236 @@
 package tools.muthuishere.todo.todo;
 
 import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoChange;
+import tools.muthuishere.todo.todo.model.TodoPage;
+import tools.muthuishere.todo.todo.model.TodoSearchHit;
+import tools.muthuishere.todo.todo.model.TodoStats;
+import tools.muthuishere.todo.todo.model.TodoSummary;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class TodoService {
 
-    private final TodoRepository todoRepository;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_SEARCH_RESULTS = 100;
+    public static final int MAX_STATS_DAYS = 366;
+
+    // every store call is atomic on its own, so the cache and index below only ever see committed writes, the
+    // feed sees them committed or, with a bus in the store's database, joins the write's transaction.
+    // Concurrent writes can reach them in another order than the store applied them, the store's version of
+    // each write lets the index and the feed notice
+    private final TodoStore todoStore;
+    private final TodoCache todoCache;
+    private final TodoSearchIndex searchIndex;
+    private final TodoChangeFeed changeFeed;
 
     public List<Todo> getAllTodos(String email) {
-        return todoRepository.findByEmail(email);
+        return todoCache.getAll(email, () -> todoStore.findAll(email));
+    }
+
+    /**
+     * Keyset pagination by id: returns up to limit todos with id greater than cursor (null for the first page).
+     */
+    public TodoPage getTodoPage(String email, Long cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // fetch one extra row to know whether another page follows
+        List<Todo> rows = todoStore.findPage(email, cursor == null ? 0L : cursor, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Todo> todos = hasMore ? rows.subList(0, pageSize) : rows;
+        return TodoPage.builder()
+                .todos(todos)
+                .nextCursor(hasMore ? todos.get(pageSize - 1).getId() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Streams all todos of a user in id order, handing them to the consumer in chunks,
+     * so memory stays flat however many todos the user has.
+     * The chunk list is reused, consumers must not keep a reference to it.
+     */
+    public void streamAllTodos(String email, int chunkSize, Consumer<List<Todo>> chunkConsumer) {
+        todoStore.stream(email, chunkSize, chunkConsumer);
+    }
+
+    /**
+     * Ranked full-text search over title and description, best match first.
+     */
+    public List<TodoSearchHit> searchTodos(String email, String query, Boolean completed, int limit) {
+        int maxResults = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return searchIndex.search(email, query, completed, maxResults, () -> todoStore.findAll(email));
     }
 
     public Optional<Todo> getTodoById(Long id, String email) {
-        return todoRepository.findByIdAndEmail(id, email);
+        return todoCache.get(email, id, () -> todoStore.findById(email, id));
     }
 
     public Todo createTodo(Todo todo, String email) {
         todo.setEmail(email);
         todo.setCreatedAt(LocalDateTime.now());
         todo.setUpdatedAt(LocalDateTime.now());
-        return todoRepository.save(todo);
+        TodoStore.Versioned<Todo> saved = write(email, () -> todoStore.insert(todo), created -> true,
+                written -> changeFeed.publish(email, written.version(), TodoChange.Type.CREATED,
+                        List.of(written.value())));
+        searchIndex.put(email, saved.version(), List.of(saved.value()));
+        return saved.value();
     }
 
-    public Optional<Todo> updateTodo(Long id, Todo todoDetails, String email) {
-        return todoRepository.findByIdAndEmail(id, email).map(todo -> {
-            todo.setTitle(todoDetails.getTitle());
-            todo.setDescription(todoDetails.getDescription());
-            todo.setCompleted(todoDetails.isCompleted());
-            todo.setUpdatedAt(LocalDateTime.now());
-            return todoRepository.save(todo);
+    /**
+     * Creates all todos at once, returns them in input order.
+     */
+    public List<Todo> createTodos(List<Todo> todos, String email) {
+        LocalDateTime now = LocalDateTime.now();
+        todos.forEach(todo -> {
+            todo.setEmail(email);
+            todo.setCreatedAt(now);
+            todo.setUpdatedAt(now);
         });
+        TodoStore.Versioned<List<Todo>> saved = write(email, () -> todoStore.insertAll(todos), created -> true,
+                written -> changeFeed.publish(email, written.version(), TodoChange.Type.CREATED, written.value()));
+        searchIndex.put(email, saved.version(), saved.value());
+        return saved.value();
+    }
+
+    public Optional<Todo> updateTodo(Long id, Todo todoDetails, String email) {
+        TodoStore.Versioned<Optional<Todo>> saved = write(email, () -> todoStore.update(email, id,
+                        todoDetails.getTitle(), todoDetails.getDescription(), todoDetails.isCompleted(),
+                        LocalDateTime.now()), Optional::isPresent,
+                written -> changeFeed.publish(email, written.version(), TodoChange.Type.UPDATED,
+                        List.of(written.value().get())));
+        saved.value().ifPresent(todo -> searchIndex.put(email, saved.version(), List.of(todo)));
+        return saved.value();
     }
 
     public boolean deleteTodo(Long id, String email) {
-        return todoRepository.findByIdAndEmail(id, email).map(todo -> {
-            todoRepository.delete(todo);
-            return true;
-        }).orElse(false);
+        TodoStore.Versioned<Boolean> deleted = write(email, () -> todoStore.delete(email, id), Boolean::booleanValue,
+                written -> changeFeed.publishIds(email, written.version(), TodoChange.Type.DELETED, List.of(id)));
+        if (!deleted.value()) {
+            return false;
+        }
+        searchIndex.remove(email, deleted.version(), List.of(id));
+        return true;
     }
 
     public List<Todo> getCompletedTodos(String email) {
-        return todoRepository.findByEmailAndCompleted(email, true);
+        return todoStore.findByCompleted(email, true);
     }
 
     public List<Todo> getPendingTodos(String email) {
-        return todoRepository.findByEmailAndCompleted(email, false);
+        return todoStore.findByCompleted(email, false);
     }
 
     public long getTodoCount(String email) {
-        return todoRepository.countByEmail(email);
+        return todoStore.count(email);
+    }
+
+    public long getTodoCount(String email, boolean completed) {
+        return todoStore.count(email, completed);
+    }
+
+    /**
+     * Completion counts and created/updated per day over the last days days, without loading the todos.
+     */
+    public TodoStats getTodoStats(String email, int days) {
+        int window = Math.max(1, Math.min(days, MAX_STATS_DAYS));
+        return todoStore.getStats(email, LocalDate.now().minusDays(window - 1), window);
+    }
+
+    /**
+     * id/title/completed of the user's todos, optionally filtered by completion.
+     */
+    public List<TodoSummary> getTodoSummaries(String email, Boolean completed) {
+        return todoStore.findSummaries(email, completed);
     }
 
     public boolean markAsCompleted(Long id, String email) {
-        return todoRepository.findByIdAndEmail(id, email).map(todo -> {
-            todo.setCompleted(true);
-            todo.setUpdatedAt(LocalDateTime.now());
-            todoRepository.save(todo);
-            return true;
-        }).orElse(false);
+        return setCompleted(id, email, true);
     }
 
     public boolean markAsPending(Long id, String email) {
-        return todoRepository.findByIdAndEmail(id, email).map(todo -> {
-            todo.setCompleted(false);
-            todo.setUpdatedAt(LocalDateTime.now());
-            todoRepository.save(todo);
-            return true;
-        }).orElse(false);
-    }
-}
\ No newline at end of file
+        return setCompleted(id, email, false);
+    }
+
+    private boolean setCompleted(Long id, String email, boolean completed) {
+        TodoStore.Versioned<Boolean> updated = write(email,
+                () -> todoStore.setCompleted(email, id, completed, LocalDateTime.now()), Boolean::booleanValue,
+                written -> changeFeed.publishIds(email, written.version(),
+                        completed ? TodoChange.Type.COMPLETED : TodoChange.Type.REOPENED, List.of(id)));
+        if (!updated.value()) {
+            return false;
+        }
+        searchIndex.setCompleted(email, updated.version(), List.of(id), completed);
+        return true;
+    }
+
+    /**
+     * Marks the user's todos among ids as completed, returns the ids that were updated.
+     */
+    public Set<Long> markAllAsCompleted(Collection<Long> ids, String email) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        TodoStore.Versioned<List<Long>> owned = write(email,
+                () -> todoStore.setCompleted(email, ids, true, LocalDateTime.now()), updated -> !updated.isEmpty(),
+                written -> changeFeed.publishIds(email, written.version(), TodoChange.Type.COMPLETED, written.value()));
+        if (!owned.value().isEmpty()) {
+            searchIndex.setCompleted(email, owned.version(), owned.value(), true);
+        }
+        return new HashSet<>(owned.value());
+    }
+
+    /**
+     * Deletes the user's todos among ids, returns the ids that were deleted.
+     */
+    public Set<Long> deleteTodos(Collection<Long> ids, String email) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        TodoStore.Versioned<List<Long>> owned = write(email, () -> todoStore.delete(email, ids),
+                deleted -> !deleted.isEmpty(),
+                written -> changeFeed.publishIds(email, written.version(), TodoChange.Type.DELETED, written.value()));
+        if (!owned.value().isEmpty()) {
+            searchIndex.remove(email, owned.version(), owned.value());
+        }
+        return new HashSet<>(owned.value());
+    }
+
+    // The write publishes its changes from inside, so with a bus in the store's database both commit together.
+    // The cache is dropped before the changes are out and again after the commit, in case a read racing the
+    // transaction cached the state from before it
+    private <T> TodoStore.Versioned<T> write(String email, Supplier<TodoStore.Versioned<T>> write,
+                                             Predicate<T> changed, Consumer<TodoStore.Versioned<T>> publish) {
+        try {
+            TodoStore.Versioned<T> written = changeFeed.inTransaction(() -> {
+                TodoStore.Versioned<T> result = write.get();
+                if (changed.test(result.value())) {
+                    todoCache.invalidate(email);
+                    publish.accept(result);
+                }
+                return result;
+            });
+            if (changed.test(written.value())) {
+                todoCache.invalidate(email);
+            }
+            return written;
+        } catch (RuntimeException e) {
+            // e.g. the write-ahead log failed to sync a change the store already shows, rebuild from the store
+            todoCache.invalidate(email);
+            searchIndex.invalidate(email);
+            throw e;
+        }
+    }
+}
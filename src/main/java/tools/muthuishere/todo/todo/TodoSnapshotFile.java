@@ -0,0 +1,153 @@
+package tools.muthuishere.todo.todo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Snapshot file of InMemoryTodoStore.
+ * <p>
+ * A snapshot is only ever appended to, front to back, in a temporary file that is forced to disk and then
+ * moved over the previous snapshot, so a crash leaves either the old or the new one, never a mix.
+ * Layout: magic, version, the first write-ahead log segment the snapshot doesn't cover, then per user a 1 byte,
+ * the email, the record count and the records. A 0 byte ends the users, followed by the id counter, so ids of
+ * deleted todos are never handed out again.
+ */
+final class TodoSnapshotFile {
+
+    private static final int MAGIC = 0x544F444F; // "TODO"
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private TodoSnapshotFile() {
+    }
+
+    /**
+     * @param walSegment first write-ahead log segment to replay on top, 0 when there is none
+     * @param lastId     highest id ever handed out, 0 for snapshots written before it was recorded
+     */
+    record Header(long walSegment, long lastId) {
+    }
+
+    static Writer create(Path file, long walSegment) throws IOException {
+        return new Writer(file, walSegment);
+    }
+
+    /**
+     * Hands every record to the sink with its owner, in file order.
+     */
+    static Header read(Path file, BiConsumer<String, TodoRecord> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return new Header(0, 0);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a todo snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported todo snapshot version " + version + ": " + file);
+            }
+            long walSegment = version == 1 ? 0 : in.readLong();
+            while (in.readByte() == 1) {
+                String email = readString(in);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    sink.accept(email, new TodoRecord(in.readLong(), readString(in), readString(in),
+                            in.readBoolean(), in.readLong(), in.readLong()));
+                }
+            }
+            return new Header(walSegment, version < 3 ? 0 : in.readLong());
+        }
+    }
+
+    static final class Writer implements Closeable {
+
+        private final Path file;
+        private final Path temp;
+        private final FileOutputStream fileOut;
+        private final DataOutputStream out;
+        private boolean committed;
+
+        private Writer(Path file, long walSegment) throws IOException {
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.fileOut = new FileOutputStream(temp.toFile());
+            this.out = new DataOutputStream(new BufferedOutputStream(fileOut, BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(walSegment);
+        }
+
+        void user(String email, TodoRecord[] records, int count) throws IOException {
+            out.writeByte(1);
+            writeString(out, email);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                TodoRecord record = records[i];
+                out.writeLong(record.id());
+                writeString(out, record.title());
+                writeString(out, record.description());
+                out.writeBoolean(record.completed());
+                out.writeLong(record.createdAt());
+                out.writeLong(record.updatedAt());
+            }
+        }
+
+        /**
+         * Ends the snapshot, forces it to disk and replaces the previous one. lastId is read after all users
+         * are written, so it covers every id in the file.
+         */
+        void commit(long lastId) throws IOException {
+            out.writeByte(0);
+            out.writeLong(lastId);
+            out.flush();
+            fileOut.getChannel().force(true);
+            out.close();
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // length-prefixed UTF-8, -1 for null (writeUTF stops at 64 KB)
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,93 @@
+package tools.muthuishere.todo.todo;
+
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoStats;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage behind TodoService, selected with {@code todo.store}: {@link JpaTodoStore} (jpa, the default)
+ * or {@link InMemoryTodoStore} (memory).
+ * <p>
+ * Every call is scoped to the owner's email and is atomic on its own: once it returns, the change is
+ * visible to every other caller. Todos handed out are copies the caller may modify.
+ * <p>
+ * Writes come back {@link Versioned}: versions are taken from one counter of the store, and of two writes to
+ * the same todo the one the store applied later has the higher version. Callers that keep derived state
+ * (search index, change feed) use them to tell when they see two writes in the opposite order.
+ */
+public interface TodoStore {
+
+    /**
+     * Result of a write with the version the store gave it.
+     */
+    record Versioned<T>(T value, long version) {
+    }
+
+    List<Todo> findAll(String email);
+
+    List<Todo> findByCompleted(String email, boolean completed);
+
+    Optional<Todo> findById(String email, long id);
+
+    /**
+     * Up to limit todos with an id greater than afterId, in id order.
+     */
+    List<Todo> findPage(String email, long afterId, int limit);
+
+    /**
+     * All todos in id order, handed to the consumer in chunks of chunkSize. The chunk list is reused.
+     */
+    void stream(String email, int chunkSize, Consumer<List<Todo>> chunkConsumer);
+
+    /**
+     * id/title/completed in id order, all of them when completed is null.
+     */
+    List<TodoSummary> findSummaries(String email, Boolean completed);
+
+    long count(String email);
+
+    long count(String email, boolean completed);
+
+    /**
+     * Completion counts and todos created/updated per day from firstDay on, one entry per day including
+     * days without activity. All numbers come from the same point in time.
+     */
+    TodoStats getStats(String email, LocalDate firstDay, int days);
+
+    /**
+     * Stores a new todo (email and timestamps already set) and returns it with its id.
+     */
+    Versioned<Todo> insert(Todo todo);
+
+    /**
+     * Stores all new todos at once, returned in input order with their ids.
+     */
+    Versioned<List<Todo>> insertAll(List<Todo> todos);
+
+    /**
+     * Replaces title, description and completed of the user's todo, empty when it doesn't exist or isn't theirs.
+     */
+    Versioned<Optional<Todo>> update(String email, long id, String title, String description, boolean completed,
+                                     LocalDateTime updatedAt);
+
+    Versioned<Boolean> setCompleted(String email, long id, boolean completed, LocalDateTime updatedAt);
+
+    /**
+     * Sets completed on the user's todos among ids, returns the ids that were updated.
+     */
+    Versioned<List<Long>> setCompleted(String email, Collection<Long> ids, boolean completed, LocalDateTime updatedAt);
+
+    Versioned<Boolean> delete(String email, long id);
+
+    /**
+     * Deletes the user's todos among ids, returns the ids that were deleted.
+     */
+    Versioned<List<Long>> delete(String email, Collection<Long> ids);
+}
@@ -3,26 +3,102 @@ package tools.muthuishere.todo.todo;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
 import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoBatchResult;
+import tools.muthuishere.todo.todo.model.TodoDraft;
+import tools.muthuishere.todo.todo.model.TodoList;
+import tools.muthuishere.todo.todo.model.TodoPage;
+import tools.muthuishere.todo.todo.model.TodoSearchHit;
+import tools.muthuishere.todo.todo.model.TodoShape;
+import tools.muthuishere.todo.todo.model.TodoStats;
+import tools.muthuishere.todo.todo.model.TodoSummary;
 import tools.muthuishere.todo.todo.model.TodoToolResponse;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 @Component
 @RequiredArgsConstructor
 public class TodoTools {
 
+    static final int MAX_BATCH_SIZE = 500;
+
+    private static final String VIEW_DESCRIPTION = "compact (default: id, title, description, completed) or full (every field)";
+    private static final String FIELDS_DESCRIPTION = "Comma separated fields to return instead of a view: id, title, description, completed, email, createdAt, updatedAt";
+
     private final TodoService todoService;
 
     @McpTool(name = "fetch-all-todos", description = "Gets all Todo items")
-    public List<Todo> fetchAllTodos() {
+    public List<Todo> fetchAllTodos(
+            @McpToolParam(description = VIEW_DESCRIPTION, required = false)
+            String view,
+
+            @McpToolParam(description = FIELDS_DESCRIPTION, required = false)
+            String fields
+    ) {
+        String email = MCPContextHolder.getEmail();
+        TodoShape shape = TodoShape.of(view, fields, TodoShape.COMPACT);
+        return TodoList.of(todoService.getAllTodos(email), shape);
+    }
+
+    @McpTool(name = "fetch-todos-page", description = "Gets one page of Todo items ordered by ID. Pass nextCursor from the previous page to continue")
+    public TodoPage fetchTodosPage(
+            @McpToolParam(description = "nextCursor from the previous page, empty for the first page", required = false)
+            Long cursor,
+
+            @McpToolParam(description = "Maximum number of items to return (1-500, default 50)", required = false)
+            Integer limit,
+
+            @McpToolParam(description = VIEW_DESCRIPTION, required = false)
+            String view,
+
+            @McpToolParam(description = FIELDS_DESCRIPTION, required = false)
+            String fields
+    ) {
+        String email = MCPContextHolder.getEmail();
+        TodoShape shape = TodoShape.of(view, fields, TodoShape.COMPACT);
+        TodoPage page = todoService.getTodoPage(email, cursor, limit == null ? 50 : limit);
+        page.setTodos(TodoList.of(page.getTodos(), shape));
+        return page;
+    }
+
+    @McpTool(name = "fetch-todo-summaries", description = "Lists id, title and completed status of Todo items, without descriptions")
+    public List<TodoSummary> fetchTodoSummaries(
+            @McpToolParam(description = "Only completed (true) or pending (false) items, empty for all", required = false)
+            Boolean completed
+    ) {
+        String email = MCPContextHolder.getEmail();
+        return todoService.getTodoSummaries(email, completed);
+    }
+
+    @McpTool(name = "search-todos", description = "Finds Todo items whose title or description contains any of the query words, best matches first")
+    public List<TodoSearchHit> searchTodos(
+            @McpToolParam(description = "Words to look for")
+            String query,
+
+            @McpToolParam(description = "Only completed (true) or pending (false) items, empty for all", required = false)
+            Boolean completed,
+
+            @McpToolParam(description = "Maximum number of items to return (1-100, default 10)", required = false)
+            Integer limit
+    ) {
         String email = MCPContextHolder.getEmail();
-        return todoService.getAllTodos(email);
+        return todoService.searchTodos(email, query, completed, limit == null ? 10 : limit);
+    }
+
+    @McpTool(name = "todo-stats", description = "Counts total, completed and pending Todo items and how many were created and updated per day, without listing them")
+    public TodoStats todoStats(
+            @McpToolParam(description = "Number of days covered by the daily counts, ending today (1-366, default 30)", required = false)
+            Integer days
+    ) {
+        String email = MCPContextHolder.getEmail();
+        return todoService.getTodoStats(email, days == null ? 30 : days);
     }
 
     @McpTool(name = "fetch-todo-by-id", description = "Gets a Todo item by ID")
@@ -60,11 +136,8 @@ public class TodoTools {
 
         Todo savedTodo = todoService.createTodo(todo, email);
 
-        String fact = "Todo created successfully for user: " + email;
-
         return TodoToolResponse.builder()
                 .todo(savedTodo)
-                .fact(fact)
                 .build();
     }
 
@@ -101,4 +174,74 @@ public class TodoTools {
         String email = MCPContextHolder.getEmail();
         return todoService.deleteTodo(id, email);
     }
-}
\ No newline at end of file
+
+    @McpTool(name = "make-todos", description = "Creates several Todo items in one call, returns one result per item in input order")
+    public List<TodoBatchResult> makeTodos(
+            @McpToolParam(description = "Todo items to create, each with title, description and completed")
+            List<TodoDraft> todos
+    ) {
+        String email = MCPContextHolder.getEmail();
+        checkBatchSize(todos);
+
+        List<TodoBatchResult> results = new ArrayList<>(todos.size());
+        List<Todo> valid = new ArrayList<>(todos.size());
+        for (TodoDraft draft : todos) {
+            if (draft.getTitle() == null || draft.getTitle().isBlank()) {
+                results.add(TodoBatchResult.builder().success(false).message("Title is required").build());
+                continue;
+            }
+            valid.add(Todo.builder()
+                    .title(draft.getTitle())
+                    .description(draft.getDescription())
+                    .completed(draft.isCompleted())
+                    .build());
+            results.add(null); // filled in once saved
+        }
+
+        List<Todo> saved = valid.isEmpty() ? List.of() : todoService.createTodos(valid, email);
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Todo todo = saved.get(next++);
+                results.set(i, TodoBatchResult.builder().id(todo.getId()).success(true).todo(todo).build());
+            }
+        }
+        return results;
+    }
+
+    @McpTool(name = "complete-todos", description = "Marks several Todo items as completed in one call, returns one result per id")
+    public List<TodoBatchResult> completeTodos(
+            @McpToolParam(description = "ids of the Items to complete")
+            List<Long> ids
+    ) {
+        String email = MCPContextHolder.getEmail();
+        checkBatchSize(ids);
+        return toResults(ids, todoService.markAllAsCompleted(ids, email));
+    }
+
+    @McpTool(name = "remove-todos", description = "Deletes several Todo items in one call, returns one result per id")
+    public List<TodoBatchResult> removeTodos(
+            @McpToolParam(description = "ids of the Items to delete")
+            List<Long> ids
+    ) {
+        String email = MCPContextHolder.getEmail();
+        checkBatchSize(ids);
+        return toResults(ids, todoService.deleteTodos(ids, email));
+    }
+
+    private static void checkBatchSize(List<?> items) {
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " items per call, got " + items.size());
+        }
+    }
+
+    private static List<TodoBatchResult> toResults(List<Long> ids, Set<Long> changed) {
+        return ids.stream()
+                .map(id -> TodoBatchResult.builder()
+                        .id(id)
+                        .success(changed.contains(id))
+                        .message(changed.contains(id) ? null : "Todo not found")
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,421 @@
+package tools.muthuishere.todo.todo;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log of InMemoryTodoStore.
+ * <p>
+ * The log is a numbered series of preallocated segment files, each mapped into memory. A write is one frame
+ * (length, CRC32C, payload) copied into the mapping, so appending is a memory copy under a short lock.
+ * Frames hold the full new state of each changed todo or the id of a deleted one, so replaying a frame that is
+ * already part of the snapshot changes nothing.
+ * <p>
+ * Group commit: writers wait in {@link #awaitDurable} while a single flusher thread forces the mapping to disk.
+ * The flusher lingers for the sync window before each force, so all writers arriving in that window share
+ * one fsync. Without fsync, writes are durable once they are in the mapping (they survive a crash of the
+ * process, not of the machine).
+ */
+@Slf4j
+final class TodoWriteAheadLog implements Closeable {
+
+    private static final int FRAME_HEADER = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    /**
+     * Receives replayed changes in log order.
+     */
+    interface Replay {
+        void put(String email, TodoRecord record);
+
+        void delete(String email, long id);
+    }
+
+    private final Path dir;
+    private final long segmentSize;
+    private final boolean fsync;
+    private final long syncWindowNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    // guarded by lock, closed and failure are also read without it by checkWritable
+    private Segment current;
+    private long written;
+    private long durable;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private Thread flusher;
+
+    private TodoWriteAheadLog(Path dir, long segmentSize, boolean fsync, Duration syncWindow) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.syncWindowNanos = syncWindow.toNanos();
+    }
+
+    /**
+     * Replays every segment numbered firstSegment or higher, then starts a new segment for writes.
+     */
+    static TodoWriteAheadLog open(Path dir, long firstSegment, long segmentSize, boolean fsync, Duration syncWindow,
+                                  Replay replay) throws IOException {
+        Files.createDirectories(dir);
+        TodoWriteAheadLog wal = new TodoWriteAheadLog(dir, segmentSize, fsync, syncWindow);
+        long last = firstSegment - 1;
+        for (long segment : wal.segments()) {
+            if (segment >= firstSegment) {
+                replay(wal.segmentFile(segment), replay);
+            }
+            last = Math.max(last, segment);
+        }
+        wal.current = wal.createSegment(last + 1, segmentSize);
+        if (fsync) {
+            wal.flusher = Thread.ofPlatform().name("todo-wal-flusher").daemon().start(wal::flushLoop);
+        }
+        return wal;
+    }
+
+    /**
+     * Throws when writes would be rejected anyway, so the store can refuse a write before applying it.
+     */
+    void checkWritable() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log sync failed, writes are rejected", failure);
+        }
+    }
+
+    /**
+     * Appends one frame and returns the log position to pass to {@link #awaitDurable}.
+     */
+    long append(Batch batch) {
+        byte[] payload = batch.bytes.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int frameLength = FRAME_HEADER + payload.length;
+        lock.lock();
+        try {
+            checkWritable();
+            if (current.position + frameLength > current.buffer.capacity()) {
+                roll(frameLength);
+            }
+            MappedByteBuffer buffer = current.buffer;
+            int position = current.position;
+            buffer.put(position + FRAME_HEADER, payload);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            // length last, a frame is only visible to replay once it is complete
+            buffer.putInt(position, payload.length);
+            current.position += frameLength;
+            written += frameLength;
+            if (fsync) {
+                flushNeeded.signal();
+            }
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rolling the write-ahead log failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until everything up to position is on disk, a no-op without fsync.
+     */
+    void awaitDurable(long position) {
+        if (!fsync) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < position) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log sync failed", failure);
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Switches writes to a new segment and returns its number. A snapshot taken after this call covers
+     * every frame in lower segments, which can then be deleted.
+     */
+    long roll() throws IOException {
+        lock.lock();
+        try {
+            roll(0);
+            return current.number;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void deleteSegmentsBefore(long segment) throws IOException {
+        for (long number : segments()) {
+            if (number < segment) {
+                Files.deleteIfExists(segmentFile(number));
+            }
+        }
+    }
+
+    // guarded by lock. The full segment is forced here, so the flusher only ever has to force the current one.
+    private void roll(int frameLength) throws IOException {
+        if (fsync) {
+            current.buffer.force(0, current.position);
+            durable = written;
+            flushed.signalAll();
+        }
+        current = createSegment(current.number + 1, Math.max(segmentSize, frameLength));
+    }
+
+    private void flushLoop() {
+        while (true) {
+            Segment segment;
+            int upTo;
+            long target;
+            lock.lock();
+            try {
+                while (durable == written && !closed) {
+                    flushNeeded.awaitUninterruptibly();
+                }
+                if (durable == written) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (syncWindowNanos > 0) {
+                // let more writers join this fsync
+                LockSupport.parkNanos(syncWindowNanos);
+            }
+            lock.lock();
+            try {
+                segment = current;
+                upTo = segment.position;
+                target = written;
+            } finally {
+                lock.unlock();
+            }
+            // outside the lock, writers keep appending behind upTo while the force runs
+            try {
+                segment.buffer.force(0, upTo);
+            } catch (UncheckedIOException e) {
+                fail(e.getCause());
+                return;
+            }
+            lock.lock();
+            try {
+                durable = Math.max(durable, target);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        log.error("Syncing the write-ahead log failed, writes are rejected from now on", e);
+        lock.lock();
+        try {
+            failure = e;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            current.buffer.force(0, current.position);
+            if (current.position == 0) {
+                // nothing was written since the last roll, the next start creates a fresh segment anyway
+                Files.deleteIfExists(segmentFile(current.number));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith("wal-") && name.endsWith(".log"))
+                    .map(name -> Long.parseLong(name.substring(4, name.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentFile(long number) {
+        return dir.resolve("wal-%016d.log".formatted(number));
+    }
+
+    private Segment createSegment(long number, long size) throws IOException {
+        // a fresh file reads as zeros, a zero length ends replay of the segment
+        try (FileChannel channel = FileChannel.open(segmentFile(number), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(number, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private static final class Segment {
+        final long number;
+        final MappedByteBuffer buffer;
+        int position;
+
+        Segment(long number, MappedByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+    }
+
+    // Stops at the first torn or corrupt frame, which can only be the tail of the segment written last
+    private static void replay(Path file, Replay replay) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Decoder decoder = new Decoder(buffer);
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= FRAME_HEADER) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Corrupt frame in {} at offset {}, ignoring the rest of the segment", file,
+                        buffer.position() - FRAME_HEADER);
+                break;
+            }
+            int end = buffer.position() + length;
+            String email = decoder.string();
+            while (buffer.position() < end) {
+                byte op = buffer.get();
+                if (op == PUT) {
+                    replay.put(email, new TodoRecord(buffer.getLong(), decoder.string(), decoder.string(),
+                            buffer.get() != 0, buffer.getLong(), buffer.getLong()));
+                } else if (op == DELETE) {
+                    replay.delete(email, buffer.getLong());
+                } else {
+                    throw new IOException("Unknown operation " + op + " in " + file);
+                }
+            }
+        }
+    }
+
+    // Reads the length-prefixed strings of TodoSnapshotFile, reusing one scratch array
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String string() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The changes of one store write, all for the same user, appended as one frame.
+     */
+    static final class Batch {
+
+        private final ByteArrayOutputStream bytes;
+        private final DataOutputStream out;
+        private boolean empty = true;
+
+        Batch(String email) {
+            this.bytes = new ByteArrayOutputStream(128);
+            this.out = new DataOutputStream(bytes);
+            try {
+                TodoSnapshotFile.writeString(out, email);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void put(TodoRecord record) {
+            try {
+                out.writeByte(PUT);
+                out.writeLong(record.id());
+                TodoSnapshotFile.writeString(out, record.title());
+                TodoSnapshotFile.writeString(out, record.description());
+                out.writeBoolean(record.completed());
+                out.writeLong(record.createdAt());
+                out.writeLong(record.updatedAt());
+                empty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void delete(long id) {
+            try {
+                out.writeByte(DELETE);
+                out.writeLong(id);
+                empty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+    }
+}
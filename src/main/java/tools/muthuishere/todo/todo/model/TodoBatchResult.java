@@ -0,0 +1,20 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+/**
+ * Outcome of one item of a batch tool call, results are returned in input order.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoBatchResult {
+
+    private Long id;
+    private boolean success;
+    private String message;
+    private Todo todo;
+
+}
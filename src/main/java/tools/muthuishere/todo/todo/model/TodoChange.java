@@ -0,0 +1,25 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed change to a user's todo. todo holds the new state for CREATED and UPDATED, it is null otherwise.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoChange {
+
+    public enum Type { CREATED, UPDATED, COMPLETED, REOPENED, DELETED }
+
+    private long sequence;
+    private Type type;
+    private Long todoId;
+    private Todo todo;
+    private LocalDateTime at;
+
+}
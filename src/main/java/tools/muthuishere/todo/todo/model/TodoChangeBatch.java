@@ -0,0 +1,28 @@
+package tools.muthuishere.todo.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Changes collected for a subscriber since its last delivery, the latest change per todo, oldest first.
+ * resync means changes were dropped (or the subscription is new) and the todo list should be fetched again.
+ * cursor is the sequence of the last change covered, pass it to watch-todos to continue from there on any node.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoChangeBatch {
+
+    private List<TodoChange> changes;
+    private boolean resync;
+    private long cursor;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return !resync && (changes == null || changes.isEmpty());
+    }
+}
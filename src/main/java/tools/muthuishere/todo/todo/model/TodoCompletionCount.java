@@ -0,0 +1,18 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+/**
+ * Number of a user's todos with one completion status, a row of the GROUP BY completed query.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoCompletionCount {
+
+    private boolean completed;
+    private long count;
+
+}
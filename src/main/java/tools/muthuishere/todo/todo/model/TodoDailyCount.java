@@ -0,0 +1,20 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Number of todos created or updated on one day.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoDailyCount {
+
+    private LocalDate day;
+    private long count;
+
+}
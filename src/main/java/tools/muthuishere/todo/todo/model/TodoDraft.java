@@ -0,0 +1,19 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+/**
+ * Input for the batch create tool, one Todo to be created.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoDraft {
+
+    private String title;
+    private String description;
+    private boolean completed;
+
+}
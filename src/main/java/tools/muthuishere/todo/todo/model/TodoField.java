@@ -0,0 +1,44 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a Todo as they appear in JSON, selectable with the fields parameter of the list tools.
+ */
+@Getter
+public enum TodoField {
+
+    ID("id", Todo::getId),
+    TITLE("title", Todo::getTitle),
+    DESCRIPTION("description", Todo::getDescription),
+    COMPLETED("completed", Todo::isCompleted),
+    EMAIL("email", Todo::getEmail),
+    CREATED_AT("createdAt", Todo::getCreatedAt),
+    UPDATED_AT("updatedAt", Todo::getUpdatedAt);
+
+    private final String jsonName;
+    private final Function<Todo, Object> accessor;
+
+    TodoField(String jsonName, Function<Todo, Object> accessor) {
+        this.jsonName = jsonName;
+        this.accessor = accessor;
+    }
+
+    public Object get(Todo todo) {
+        return accessor.apply(todo);
+    }
+
+    public static TodoField of(String jsonName) {
+        for (TodoField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field '" + jsonName + "', use any of "
+                + Arrays.stream(values()).map(TodoField::getJsonName).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,64 @@
+package tools.muthuishere.todo.todo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of todos that serializes in the given shape.
+ * <p>
+ * Tool results and REST bodies are written by whichever ObjectMapper the transport uses; this type makes
+ * that mapper stream the selected fields straight to its output, instead of introspecting the entity or
+ * copying it into maps first. Everywhere else it is just the list it wraps.
+ */
+@JsonSerialize(using = TodoList.Serializer.class)
+public final class TodoList extends AbstractList<Todo> implements RandomAccess {
+
+    private final List<Todo> todos;
+    private final TodoShape shape;
+
+    private TodoList(List<Todo> todos, TodoShape shape) {
+        this.todos = todos;
+        this.shape = shape;
+    }
+
+    public static TodoList of(List<Todo> todos, TodoShape shape) {
+        return new TodoList(todos instanceof TodoList list ? list.todos : todos, shape);
+    }
+
+    @Override
+    public Todo get(int index) {
+        return todos.get(index);
+    }
+
+    @Override
+    public int size() {
+        return todos.size();
+    }
+
+    public TodoShape getShape() {
+        return shape;
+    }
+
+    public static final class Serializer extends StdSerializer<TodoList> {
+
+        public Serializer() {
+            super(TodoList.class);
+        }
+
+        @Override
+        public void serialize(TodoList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(value, value.size());
+            for (Todo todo : value.todos) {
+                value.shape.write(todo, gen, provider);
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoPage {
+
+    private List<Todo> todos;
+    // pass back as cursor to get the next page, null on the last page
+    private Long nextCursor;
+    private boolean hasMore;
+
+}
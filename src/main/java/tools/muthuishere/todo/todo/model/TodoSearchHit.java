@@ -0,0 +1,21 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+/**
+ * One search-todos result, higher score means a better match.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoSearchHit {
+
+    private Long id;
+    private String title;
+    private String description;
+    private boolean completed;
+    private double score;
+
+}
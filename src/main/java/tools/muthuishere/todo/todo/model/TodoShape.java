@@ -0,0 +1,74 @@
+package tools.muthuishere.todo.todo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Which fields of a Todo a response carries.
+ * <p>
+ * FULL is the entity as stored. COMPACT is what an agent needs to act on a todo: id, title, completed and
+ * description, leaving out the caller's own email, the timestamps and null fields. Values are never shortened,
+ * an agent writes back what it read. An explicit field list returns exactly those fields.
+ */
+public record TodoShape(Set<TodoField> fields, boolean omitNulls) {
+
+    public static final TodoShape FULL = new TodoShape(EnumSet.allOf(TodoField.class), false);
+    public static final TodoShape COMPACT = new TodoShape(
+            EnumSet.of(TodoField.ID, TodoField.TITLE, TodoField.DESCRIPTION, TodoField.COMPLETED), true);
+
+    public TodoShape {
+        fields = Collections.unmodifiableSet(EnumSet.copyOf(fields));
+    }
+
+    /**
+     * @param view   compact or full, the default when empty
+     * @param fields comma separated field names, overrides view when not empty
+     */
+    public static TodoShape of(String view, String fields, TodoShape defaultShape) {
+        if (fields != null && !fields.isBlank()) {
+            EnumSet<TodoField> selected = EnumSet.noneOf(TodoField.class);
+            for (String name : fields.split(",")) {
+                if (!name.isBlank()) {
+                    selected.add(TodoField.of(name.strip()));
+                }
+            }
+            if (!selected.isEmpty()) {
+                return new TodoShape(selected, false);
+            }
+        }
+        if (view == null || view.isBlank()) {
+            return defaultShape;
+        }
+        return switch (view.strip().toLowerCase(Locale.ROOT)) {
+            case "compact" -> COMPACT;
+            case "full" -> FULL;
+            default -> throw new IllegalArgumentException("Unknown view '" + view + "', use compact or full");
+        };
+    }
+
+    /**
+     * Writes the selected fields straight to the generator, in entity order. Values go through the
+     * provider, so dates follow the ObjectMapper's settings.
+     */
+    public void write(Todo todo, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(todo);
+        for (TodoField field : fields) {
+            Object value = field.get(todo);
+            if (value == null && omitNulls) {
+                continue;
+            }
+            if (omitNulls && field == TodoField.DESCRIPTION && value instanceof String description
+                    && description.isBlank()) {
+                continue;
+            }
+            provider.defaultSerializeField(field.getJsonName(), value, gen);
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,25 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Counts for the todo-stats tool. The daily histograms cover the last {@code days} days, oldest first,
+ * with a zero entry for days without activity. A todo counts as updated on the day of its last change only.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoStats {
+
+    private long total;
+    private long completed;
+    private long pending;
+    private int days;
+    private List<TodoDailyCount> createdPerDay;
+    private List<TodoDailyCount> updatedPerDay;
+
+}
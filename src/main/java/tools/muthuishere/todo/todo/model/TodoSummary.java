@@ -0,0 +1,19 @@
+package tools.muthuishere.todo.todo.model;
+
+import lombok.*;
+
+/**
+ * Lightweight view of a Todo for list tools, without description, email and timestamps.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TodoSummary {
+
+    private Long id;
+    private String title;
+    private boolean completed;
+
+}
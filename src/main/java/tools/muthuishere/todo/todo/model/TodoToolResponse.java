@@ -10,6 +10,5 @@ import lombok.*;
 public class TodoToolResponse {
 
     private Todo todo;
-    private String fact;
 
 }
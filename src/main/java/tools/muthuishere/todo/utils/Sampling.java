@@ -10,8 +10,13 @@ import org.springframework.util.Assert;
 
 import java.util.List;
 
+/**
+ * Synchronous sampling without timeout or limits, kept for Spring AI ToolContext callers.
+ * Prefer {@link tools.muthuishere.todo.sampling.SamplingService}.
+ */
 @Slf4j
 @UtilityClass
+@Deprecated
 public class Sampling {
 
     public static String createSamplingRequest(ToolContext ctx, String systemPrompt, String content) {
@@ -55,6 +60,6 @@ public class Sampling {
                 .build();
 
         McpSchema.CreateMessageResult result = exchange.createMessage(request);
-        return ((McpSchema.TextContent) result.content()).text();
+        return result.content() instanceof McpSchema.TextContent text ? text.text() : "";
     }
 }
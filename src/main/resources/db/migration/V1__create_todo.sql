@@ -0,0 +1,16 @@
+-- Todo schema, matches the Todo entity (Hibernate validates it in the durable profile)
+create sequence todo_seq start with 1 increment by 50;
+
+create table todo (
+    id          bigint       not null,
+    title       varchar(255),
+    description varchar(255),
+    completed   boolean      not null,
+    email       varchar(255),
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    primary key (id)
+);
+
+create index idx_todo_email_id on todo (email, id);
+create index idx_todo_email_completed_id on todo (email, completed, id);
@@ -0,0 +1,14 @@
+-- Change bus of the cluster profile (JdbcChangeNotificationBus), the identity is the cluster-wide sequence
+create table todo_change_notification (
+    id         bigint generated by default as identity,
+    origin     varchar(64)  not null,
+    email      varchar(255) not null,
+    type       varchar(16)  not null,
+    todo_id    bigint,
+    todo       clob,
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_todo_change_notification_email_id on todo_change_notification (email, id);
+create index idx_todo_change_notification_created_at on todo_change_notification (created_at);
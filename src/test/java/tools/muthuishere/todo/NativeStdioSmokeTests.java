@@ -0,0 +1,122 @@
+package tools.muthuishere.todo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the native executable with the stdio profile and calls every tool once.
+ * Only runs from ./gradlew nativeSmokeTest -Pnative, which passes the binary in native.binary.
+ */
+@EnabledIfSystemProperty(named = "native.binary", matches = ".+")
+class NativeStdioSmokeTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static Process server;
+    private static BufferedReader out;
+    private static OutputStream in;
+    private static int nextId;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = new ProcessBuilder(System.getProperty("native.binary"),
+                "--spring.profiles.active=stdio",
+                "--mcp.stdio.user-email=native@example.com",
+                // stdio never verifies a token, but the placeholders in application.properties must resolve
+                "--firebase.project-id=native-smoke",
+                "--firebase.apiKey=",
+                "--firebase.service-account-key=")
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        out = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8));
+        in = server.getOutputStream();
+
+        request("initialize", Map.of(
+                "protocolVersion", "2025-03-26",
+                "capabilities", Map.of(),
+                "clientInfo", Map.of("name", "native-smoke-test", "version", "1.0")));
+        send(Map.of("jsonrpc", "2.0", "method", "notifications/initialized"));
+    }
+
+    @AfterAll
+    static void stopServer() throws InterruptedException {
+        server.destroy();
+        if (!server.waitFor(10, TimeUnit.SECONDS)) {
+            server.destroyForcibly();
+        }
+    }
+
+    @Test
+    void callsEveryTool() throws Exception {
+        List<String> tools = new ArrayList<>();
+        request("tools/list", Map.of()).path("tools").forEach(tool -> tools.add(tool.path("name").asText()));
+        assertThat(tools).contains("fetch-all-todos", "fetch-todos-page", "fetch-todo-summaries", "search-todos",
+                "todo-stats", "fetch-todo-by-id", "make-todo", "change-todo", "remove-todo", "make-todos",
+                "complete-todos", "remove-todos", "summarize-todos");
+
+        JsonNode created = callTool("make-todo", Map.of("title", "Native smoke", "description", "stdio", "completed", false));
+        long id = JSON.readTree(created.path("content").get(0).path("text").asText()).path("todo").path("id").asLong();
+
+        callTool("make-todos", Map.of("todos", List.of(Map.of("title", "Batch one", "completed", false))));
+        callTool("fetch-all-todos", Map.of());
+        callTool("fetch-todos-page", Map.of("limit", 10));
+        callTool("fetch-todo-summaries", Map.of());
+        callTool("search-todos", Map.of("query", "smoke"));
+        callTool("todo-stats", Map.of());
+        callTool("fetch-todo-by-id", Map.of("id", id));
+        callTool("change-todo", Map.of("id", id, "title", "Native smoke", "description", "changed", "completed", true));
+        callTool("complete-todos", Map.of("ids", List.of(id)));
+        callTool("summarize-todos", Map.of());
+        callTool("remove-todos", Map.of("ids", List.of(id + 1000)));
+        callTool("remove-todo", Map.of("id", id));
+    }
+
+    private static JsonNode callTool(String name, Map<String, Object> arguments) throws Exception {
+        JsonNode result = request("tools/call", Map.of("name", name, "arguments", arguments));
+        assertThat(result.path("isError").asBoolean(false)).as(name + ": " + result).isFalse();
+        return result;
+    }
+
+    private static JsonNode request(String method, Map<String, Object> params) throws Exception {
+        int id = ++nextId;
+        send(Map.of("jsonrpc", "2.0", "id", id, "method", method, "params", params));
+        JsonNode response = CompletableFuture.supplyAsync(() -> {
+            try {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.startsWith("{") && JSON.readTree(line).path("id").asInt(-1) == id) {
+                        return JSON.readTree(line);
+                    }
+                }
+                throw new IllegalStateException("Server exited before answering " + method);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(30, TimeUnit.SECONDS);
+        assertThat(response.has("error")).as(method + ": " + response).isFalse();
+        return response.path("result");
+    }
+
+    private static void send(Object message) throws IOException {
+        in.write(JSON.writeValueAsBytes(message));
+        in.write('\n');
+        in.flush();
+    }
+}
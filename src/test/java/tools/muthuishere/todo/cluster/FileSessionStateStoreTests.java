@@ -0,0 +1,47 @@
+package tools.muthuishere.todo.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSessionStateStoreTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sharesStateBetweenStoresOnTheSameDirectory() throws Exception {
+        FileSessionStateStore node1 = new FileSessionStateStore(dir, Duration.ofHours(1));
+        FileSessionStateStore node2 = new FileSessionStateStore(dir, Duration.ofHours(1));
+
+        node1.save(new McpSessionState("session/../1", "user@example.com", 42));
+
+        assertThat(node2.find("session/../1")).contains(new McpSessionState("session/../1", "user@example.com", 42));
+        assertThat(node2.find("session-2")).isEmpty();
+
+        node2.delete("session/../1");
+        assertThat(node1.find("session/../1")).isEmpty();
+    }
+
+    @Test
+    void forgetsSessionsOlderThanTheTtl() throws Exception {
+        FileSessionStateStore store = new FileSessionStateStore(dir, Duration.ofMinutes(5));
+        store.save(new McpSessionState("old", "user@example.com", 1));
+        try (var files = Files.list(dir)) {
+            Path file = files.findFirst().orElseThrow();
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofMinutes(10))));
+        }
+
+        assertThat(store.find("old")).isEmpty();
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
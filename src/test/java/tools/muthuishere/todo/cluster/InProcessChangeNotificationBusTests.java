@@ -0,0 +1,95 @@
+package tools.muthuishere.todo.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tools.muthuishere.todo.todo.model.TodoChange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InProcessChangeNotificationBusTests {
+
+    private final String cluster = "test-" + UUID.randomUUID();
+    private final InProcessChangeNotificationBus first = new InProcessChangeNotificationBus(cluster, "first", 3);
+    private final InProcessChangeNotificationBus second = new InProcessChangeNotificationBus(cluster, "second", 3);
+
+    @AfterEach
+    void tearDown() {
+        first.destroy();
+        second.destroy();
+    }
+
+    @Test
+    void deliversToEveryMemberInSequenceOrder() {
+        List<ChangeNotification> received = new ArrayList<>();
+        second.subscribe(received::add);
+
+        first.publish(List.of(change("a@example.com", 1L), change("b@example.com", 2L)));
+
+        assertThat(received).extracting(ChangeNotification::sequence).containsExactly(1L, 2L);
+        assertThat(received).extracting(ChangeNotification::origin).containsOnly("first");
+        assertThat(second.getLastSequence()).isEqualTo(2);
+        assertThat(second.getContiguousSequence()).isEqualTo(2);
+    }
+
+    @Test
+    void deliversOutsideTheLockAndKeepsTheContiguousSequenceBehindSlowDeliveries() throws InterruptedException {
+        AtomicBoolean nested = new AtomicBoolean();
+        AtomicLong contiguousDuringDelivery = new AtomicLong(-1);
+        second.subscribe(change -> {
+            if (nested.compareAndSet(false, true)) {
+                // another publisher gets through while this delivery is still running
+                Thread publisher = Thread.ofVirtual().start(() -> first.publish(List.of(change("b@example.com", 2L))));
+                try {
+                    publisher.join(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                contiguousDuringDelivery.set(second.getContiguousSequence());
+            }
+        });
+
+        first.publish(List.of(change("a@example.com", 1L)));
+
+        assertThat(contiguousDuringDelivery).hasValue(0);
+        assertThat(second.getLastSequence()).isEqualTo(2);
+        assertThat(second.getContiguousSequence()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsOtherClustersApart() {
+        InProcessChangeNotificationBus standalone = new InProcessChangeNotificationBus("", "alone", 3);
+        List<ChangeNotification> received = new ArrayList<>();
+        standalone.subscribe(received::add);
+
+        first.publish(List.of(change("a@example.com", 1L)));
+
+        assertThat(received).isEmpty();
+        assertThat(standalone.getLastSequence()).isZero();
+        assertThat(standalone.isClustered()).isFalse();
+        assertThat(first.isClustered()).isTrue();
+    }
+
+    @Test
+    void replaysRetainedChangesOfOneUser() {
+        first.publish(List.of(change("a@example.com", 1L), change("b@example.com", 2L), change("a@example.com", 3L)));
+
+        assertThat(second.since("a@example.com", 1).orElseThrow())
+                .extracting(ChangeNotification::todoId).containsExactly(3L);
+        assertThat(second.since("a@example.com", 3).orElseThrow()).isEmpty();
+
+        first.publish(List.of(change("a@example.com", 4L)));
+        // sequence 1 dropped out of the 3 retained changes
+        assertThat(second.since("a@example.com", 0)).isEmpty();
+        assertThat(second.since("a@example.com", 1)).isPresent();
+    }
+
+    private static ChangeNotification change(String email, Long todoId) {
+        return new ChangeNotification(0, "first", email, TodoChange.Type.DELETED, todoId, null);
+    }
+}
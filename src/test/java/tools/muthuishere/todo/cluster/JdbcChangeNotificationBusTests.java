@@ -0,0 +1,157 @@
+package tools.muthuishere.todo.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import tools.muthuishere.todo.todo.model.TodoChange;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The poller thread is never started, the tests call poll() and cleanup() themselves
+class JdbcChangeNotificationBusTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+            "jdbc:h2:mem:bus-" + UUID.randomUUID(), "sa", "", true);
+    private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    private final List<ChangeNotification> received = new ArrayList<>();
+
+    JdbcChangeNotificationBusTests() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V2__create_todo_change_notification.sql"))
+                .execute(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void deliversRowsCommittedOutOfOrderOnce() {
+        JdbcChangeNotificationBus bus = bus(Duration.ofMinutes(1), Duration.ofMinutes(10));
+        insert(1, 3);
+        bus.poll();
+
+        assertThat(received).extracting(ChangeNotification::sequence).containsExactly(1L, 3L);
+        assertThat(bus.getLastSequence()).isEqualTo(3);
+        assertThat(bus.getContiguousSequence()).isEqualTo(1);
+
+        insert(2);
+        bus.poll();
+        bus.poll();
+
+        assertThat(received).extracting(ChangeNotification::sequence).containsExactly(1L, 3L, 2L);
+        assertThat(bus.getContiguousSequence()).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpOnGapsAfterTheTimeout() throws InterruptedException {
+        JdbcChangeNotificationBus bus = bus(Duration.ofMillis(1), Duration.ofMinutes(10));
+        insert(1, 3);
+        bus.poll();
+        assertThat(bus.getContiguousSequence()).isEqualTo(1);
+
+        Thread.sleep(10);
+        bus.poll();
+        assertThat(bus.getContiguousSequence()).isEqualTo(3);
+
+        insert(2);
+        bus.poll();
+        assertThat(received).extracting(ChangeNotification::sequence).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void findsLateRowsBehindMoreThanOnePollOfNewerOnes() {
+        JdbcChangeNotificationBus bus = bus(Duration.ofMinutes(1), Duration.ofMinutes(10));
+        insert(1);
+        insert(LongStream.rangeClosed(3, 1502).toArray());
+        bus.poll();
+        bus.poll();
+        assertThat(received).hasSize(1501);
+        assertThat(bus.getContiguousSequence()).isEqualTo(1);
+
+        insert(2);
+        bus.poll();
+
+        assertThat(received).hasSize(1502);
+        assertThat(received.getLast().sequence()).isEqualTo(2);
+        assertThat(bus.getContiguousSequence()).isEqualTo(1502);
+    }
+
+    @Test
+    void asksForResyncOnceChangesAfterTheSequenceAreCleanedUp() {
+        JdbcChangeNotificationBus bus = bus(Duration.ofMinutes(1), Duration.ofMinutes(10));
+        insertAt(Instant.now().minus(Duration.ofHours(1)), 1, 2);
+        insert(3, 4);
+        bus.poll();
+
+        assertThat(bus.since(EMAIL, 0).orElseThrow()).extracting(ChangeNotification::sequence)
+                .containsExactly(1L, 2L, 3L, 4L);
+
+        bus.cleanup();
+
+        assertThat(bus.since(EMAIL, 0)).isEmpty();
+        assertThat(bus.since(EMAIL, 1)).isEmpty();
+        assertThat(bus.since(EMAIL, 2).orElseThrow()).extracting(ChangeNotification::sequence)
+                .containsExactly(3L, 4L);
+        assertThat(bus.since(EMAIL, 4).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void recordsChangesOnlyWhenTheirWriteCommits() {
+        JdbcChangeNotificationBus bus = bus(Duration.ofMinutes(1), Duration.ofMinutes(10));
+        assertThatThrownBy(() -> bus.inTransaction(() -> {
+            bus.publish(List.of(change(1L)));
+            throw new IllegalStateException("store write failed");
+        })).isInstanceOf(IllegalStateException.class);
+        bus.inTransaction(() -> {
+            bus.publish(List.of(change(2L)));
+            return null;
+        });
+        bus.poll();
+
+        assertThat(received).extracting(ChangeNotification::todoId).containsExactly(2L);
+        // the rolled back write's id stays a gap until the timeout
+        assertThat(bus.getContiguousSequence()).isZero();
+    }
+
+    private JdbcChangeNotificationBus bus(Duration gapTimeout, Duration retention) {
+        JdbcChangeNotificationBus bus = new JdbcChangeNotificationBus(jdbc,
+                new DataSourceTransactionManager(dataSource), new ObjectMapper(), "node",
+                Duration.ofMillis(100), gapTimeout, retention);
+        bus.subscribe(received::add);
+        return bus;
+    }
+
+    private static ChangeNotification change(long todoId) {
+        return new ChangeNotification(0, "node", EMAIL, TodoChange.Type.DELETED, todoId, null);
+    }
+
+    private void insert(long... ids) {
+        insertAt(Instant.now(), ids);
+    }
+
+    // explicit ids stand in for identities handed out in one order and committed in another
+    private void insertAt(Instant createdAt, long... ids) {
+        for (long id : ids) {
+            jdbc.update("insert into todo_change_notification (id, origin, email, type, todo_id, todo, created_at) "
+                            + "values (?, ?, ?, ?, ?, ?, ?)",
+                    id, "other", EMAIL, TodoChange.Type.DELETED.name(), id, null, Timestamp.from(createdAt));
+        }
+    }
+}
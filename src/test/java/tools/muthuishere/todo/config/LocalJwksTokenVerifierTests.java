@@ -0,0 +1,104 @@
+package tools.muthuishere.todo.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalJwksTokenVerifierTests {
+
+    private static final String PROJECT_ID = "todo-test";
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private RSAKey signingKey;
+    private LocalJwksTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("test-key").generate();
+        verifier = LocalJwksTokenVerifier.fromJwkSet(PROJECT_ID, new JWKSet(signingKey.toPublicJWK()),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void verifiesValidToken() throws Exception {
+        Map<String, Object> claims = verifier.verify(sign(signingKey, claims(PROJECT_ID).build()));
+
+        assertThat(claims).containsEntry("email", "user@example.com");
+        assertThat(((Number) claims.get("exp")).longValue()).isEqualTo(NOW.plusSeconds(3600).getEpochSecond());
+    }
+
+    @Test
+    void rejectsWrongAudience() throws Exception {
+        String token = sign(signingKey, claims("other-project")
+                .issuer("https://securetoken.google.com/" + PROJECT_ID).build());
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(JwtException.class)
+                .hasMessageContaining("audience");
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        String token = sign(signingKey, claims(PROJECT_ID)
+                .expirationTime(Date.from(NOW.minus(Duration.ofMinutes(5)))).build());
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(JwtException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void rejectsUnknownKey() throws Exception {
+        RSAKey otherKey = new RSAKeyGenerator(2048).keyID("other-key").generate();
+
+        assertThatThrownBy(() -> verifier.verify(sign(otherKey, claims(PROJECT_ID).build())))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("signing key");
+    }
+
+    @Test
+    void loadsKeysFromFile(@TempDir Path dir) throws Exception {
+        Path jwksFile = dir.resolve("jwks.json");
+        Files.writeString(jwksFile, new JWKSet(signingKey.toPublicJWK()).toString());
+
+        LocalJwksTokenVerifier fileVerifier = LocalJwksTokenVerifier.fromFile(PROJECT_ID, jwksFile, Duration.ZERO);
+        fileVerifier.start();
+
+        assertThat(fileVerifier.keyCount()).isEqualTo(1);
+    }
+
+    private static JWTClaimsSet.Builder claims(String audience) {
+        return new JWTClaimsSet.Builder()
+                .issuer("https://securetoken.google.com/" + audience)
+                .audience(audience)
+                .subject("uid-1")
+                .claim("email", "user@example.com")
+                .issueTime(Date.from(NOW))
+                .expirationTime(Date.from(NOW.plusSeconds(3600)));
+    }
+
+    private static String sign(RSAKey key, JWTClaimsSet claims) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,108 @@
+package tools.muthuishere.todo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTests {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void countsHitsAndMisses() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        Jwt jwt = jwt(NOW.plusSeconds(3600));
+
+        assertThat(cache.get("token")).isNull();
+        cache.put("token", jwt);
+
+        assertThat(cache.get("token")).isSameAs(jwt);
+        assertThat(cache.get("other")).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsTokensOnceTheirExpHasPassed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        cache.put("short", jwt(NOW.plusSeconds(60)));
+        cache.put("long", jwt(NOW.plusSeconds(3600)));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(cache.get("short")).isNotNull();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.get("short")).isNull();
+        assertThat(cache.get("long")).isNotNull();
+    }
+
+    @Test
+    void neverKeepsExpiredTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        cache.put("expired", jwt(NOW));
+        cache.put("no-exp", Jwt.withTokenValue("no-exp").header("alg", "RS256").subject("user").build());
+
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.get("no-exp")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsOverTheSizeBound() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, clock);
+        for (int i = 0; i < 5; i++) {
+            cache.put("token-" + i, jwt(NOW.plusSeconds(3600)));
+        }
+        cache.cleanUp();
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(3);
+    }
+
+    @Test
+    void keysByHashNotByRawToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        cache.put("eyJraw.token.value", jwt(NOW.plusSeconds(3600)));
+
+        assertThat(cache.keys()).singleElement()
+                .isNotEqualTo("eyJraw.token.value")
+                .matches("[0-9a-f]{64}");
+    }
+
+    private static Jwt jwt(Instant expiresAt) {
+        return Jwt.withTokenValue("value").header("alg", "RS256").subject("user").expiresAt(expiresAt).build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = NOW;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
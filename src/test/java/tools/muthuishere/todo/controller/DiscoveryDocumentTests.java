@@ -0,0 +1,90 @@
+package tools.muthuishere.todo.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiscoveryDocumentTests {
+
+    private final DiscoveryDocument document = new DiscoveryDocument(new ObjectMapper(),
+            Map.of("issuer", "https://example.com"), CacheControl.maxAge(Duration.ofHours(1)).cachePublic());
+
+    @Test
+    void servesPlainJsonWithoutGzip() {
+        ResponseEntity<byte[]> response = document.respond(headers(null, null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"issuer\":\"https://example.com\"}");
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=3600, public");
+    }
+
+    @Test
+    void servesGzipWithItsOwnEtag() throws IOException {
+        ResponseEntity<byte[]> plain = document.respond(headers(null, null));
+        ResponseEntity<byte[]> gzip = document.respond(headers("br, gzip", null));
+
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(gzip.getBody())).isEqualTo(plain.getBody());
+        assertThat(gzip.getHeaders().getETag()).isNotEqualTo(plain.getHeaders().getETag());
+    }
+
+    @Test
+    void gzipWithZeroQualityIsNotAccepted() {
+        ResponseEntity<byte[]> response = document.respond(headers("gzip;q=0", null));
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    void matchingEtagGetsNotModified() {
+        String etag = document.respond(headers("gzip", null)).getHeaders().getETag();
+
+        ResponseEntity<byte[]> response = document.respond(headers("gzip", etag));
+        ResponseEntity<byte[]> weak = document.respond(headers("gzip", "W/" + etag));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(weak.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void etagOfTheOtherEncodingIsNotAMatch() {
+        String gzipEtag = document.respond(headers("gzip", null)).getHeaders().getETag();
+        String plainEtag = document.respond(headers(null, null)).getHeaders().getETag();
+
+        assertThat(document.respond(headers(null, gzipEtag)).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(document.respond(headers("gzip", plainEtag)).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private static HttpHeaders headers(String acceptEncoding, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return headers;
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
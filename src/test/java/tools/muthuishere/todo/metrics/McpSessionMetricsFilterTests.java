@@ -0,0 +1,58 @@
+package tools.muthuishere.todo.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class McpSessionMetricsFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final McpSessionMetricsFilter filter = new McpSessionMetricsFilter(registry);
+
+    @Test
+    void countsAnEventStreamUntilItsAsyncRequestCompletes() throws Exception {
+        MockHttpServletRequest request = request("GET", "/sse");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertThat(activeSessions()).isEqualTo(1);
+
+        request.getAsyncContext().complete();
+        assertThat(activeSessions()).isZero();
+    }
+
+    @Test
+    void countsAStreamThatEndsWithTheFilter() throws Exception {
+        double[] during = new double[1];
+
+        filter.doFilter(request("GET", "/mcp"), new MockHttpServletResponse(),
+                (req, res) -> during[0] = activeSessions());
+
+        assertThat(during[0]).isEqualTo(1);
+        assertThat(activeSessions()).isZero();
+    }
+
+    @Test
+    void leavesOtherRequestsOut() throws Exception {
+        double[] during = new double[2];
+
+        filter.doFilter(request("POST", "/mcp"), new MockHttpServletResponse(),
+                (req, res) -> during[0] = activeSessions());
+        filter.doFilter(request("GET", "/api/health"), new MockHttpServletResponse(),
+                (req, res) -> during[1] = activeSessions());
+
+        assertThat(during).containsExactly(0, 0);
+    }
+
+    private double activeSessions() {
+        return registry.get("mcp.sessions.active").gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
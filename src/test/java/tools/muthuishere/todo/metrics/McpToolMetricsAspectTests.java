@@ -0,0 +1,97 @@
+package tools.muthuishere.todo.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class McpToolMetricsAspectTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final McpToolMetricsAspect aspect = new McpToolMetricsAspect(registry, new ObjectMapper(), true, 1.0);
+
+    @Test
+    void timesToolsByNameAndOutcome() {
+        Tools tools = proxy(new Tools());
+
+        tools.fetch();
+        tools.fetch();
+        assertThatThrownBy(tools::fail).isInstanceOf(IllegalStateException.class);
+
+        assertThat(registry.get("mcp.tool.invocations").tags("tool", "fetch", "outcome", "success").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("mcp.tool.invocations").tags("tool", "fail", "outcome", "error").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("mcp.tool.errors").tags("tool", "fail", "exception", "IllegalStateException")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsCallsInFlightPerTool() {
+        Tools tools = proxy(new Tools());
+
+        assertThat(tools.active(registry)).isEqualTo(1);
+        assertThat(registry.get("mcp.tool.active").tag("tool", "active").gauge().value()).isZero();
+    }
+
+    @Test
+    void recordsSampledResponseSizes() {
+        proxy(new Tools()).fetch();
+
+        // "done" with its quotes
+        assertThat(registry.get("mcp.tool.response.size").tag("tool", "fetch").summary().totalAmount())
+                .isEqualTo(6);
+    }
+
+    @Test
+    void timesJwtDecodes() {
+        AtomicReference<Jwt> decoded = new AtomicReference<>(Jwt.withTokenValue("token")
+                .header("alg", "RS256").subject("user").build());
+        JwtDecoder decoder = proxy(token -> {
+            if (token.equals("bad")) {
+                throw new JwtException("invalid");
+            }
+            return decoded.get();
+        });
+
+        assertThat(decoder.decode("token")).isSameAs(decoded.get());
+        assertThatThrownBy(() -> decoder.decode("bad")).isInstanceOf(JwtException.class);
+
+        assertThat(registry.get("auth.jwt.decode").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.jwt.decode").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+
+    static class Tools {
+
+        @McpTool(name = "fetch", description = "fetch")
+        public String fetch() {
+            return "done";
+        }
+
+        @McpTool(name = "fail", description = "fail")
+        public String fail() {
+            throw new IllegalStateException("failed");
+        }
+
+        @McpTool(name = "active", description = "active")
+        public double active(SimpleMeterRegistry registry) {
+            return registry.get("mcp.tool.active").tag("tool", "active").gauge().value();
+        }
+    }
+}
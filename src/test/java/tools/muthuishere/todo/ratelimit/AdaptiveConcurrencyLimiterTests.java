@@ -0,0 +1,101 @@
+package tools.muthuishere.todo.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long CACHED = 10_000;
+    private static final long FAST = 1_000_000;
+    private static final long SLOW = 50_000_000;
+
+    @Test
+    void rejectsAboveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 3.0);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release("read", FAST);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileBusyAndFast() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 3.0);
+
+        for (int i = 0; i < 100; i++) {
+            fill(limiter);
+            releaseAll(limiter, "read", FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void doesNotGrowWhenIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 3.0);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release("read", FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void backsOffOncePerWindowDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 3, 10, 3.0);
+        // windows are 10 samples at this limit, the first one only sets the baseline
+        call(limiter, "read", FAST, 10);
+
+        call(limiter, "read", SLOW, 9);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+        call(limiter, "read", SLOW, 1);
+        assertThat(limiter.getLimit()).isCloseTo(7.2, within(1e-9));
+
+        call(limiter, "read", SLOW, 100);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void fastOperationsDoNotMakeSlowerOnesLookOverloaded() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 3.0);
+
+        // cache hits and database calls mixed, each steady at its own latency
+        for (int i = 0; i < 100; i++) {
+            fill(limiter);
+            boolean cached = true;
+            while (limiter.getInFlight() > 0) {
+                limiter.release(cached ? "fetch-todo-by-id" : "make-todo", cached ? CACHED : SLOW);
+                cached = !cached;
+            }
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    private static void call(AdaptiveConcurrencyLimiter limiter, String operation, long latency, int times) {
+        for (int i = 0; i < times; i++) {
+            limiter.tryAcquire();
+            limiter.release(operation, latency);
+        }
+    }
+
+    private static void fill(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // claim every slot
+        }
+    }
+
+    private static void releaseAll(AdaptiveConcurrencyLimiter limiter, String operation, long latency) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release(operation, latency);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package tools.muthuishere.todo.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import tools.muthuishere.todo.security.McpPrincipal;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class McpToolRateLimitAspectTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new McpPrincipal("user@example.com", "uid"), null, List.of()));
+    }
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void spendsTheReadOrWriteBudgetByTool() {
+        Tools tools = tools(1, 1, 4);
+
+        tools.fetch(() -> "read");
+        tools.add();
+
+        assertThatThrownBy(() -> tools.fetch(() -> "read")).isInstanceOfSatisfying(RateLimitExceededException.class,
+                e -> assertThat(e.getReason()).isEqualTo(RateLimitExceededException.Reason.USER_RATE));
+        assertThatThrownBy(tools::add).isInstanceOf(RateLimitExceededException.class);
+        assertThat(registry.get("mcp.rate-limit.rejections").tag("reason", "user_rate").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void turnsCallsAwayAtTheConcurrencyLimit() {
+        Tools tools = tools(10, 10, 1);
+
+        assertThatThrownBy(() -> tools.fetch(() -> tools.fetch(() -> "nested")))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(RateLimitExceededException.Reason.SERVER_BUSY));
+        // the slot was given back
+        assertThat(tools.fetch(() -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void longRunningToolsHoldNoSlot() {
+        Tools tools = tools(10, 10, 1);
+
+        assertThat(tools.watch(() -> tools.fetch(() -> "meanwhile"))).isEqualTo("meanwhile");
+    }
+
+    @Test
+    void leavesUnauthenticatedCallsToTheTool() {
+        Tools tools = tools(1, 1, 1);
+        SecurityContextHolder.clearContext();
+
+        tools.add();
+        tools.add();
+    }
+
+    // reads and writes with the given bursts and hardly any refill
+    private Tools tools(int readBurst, int writeBurst, int concurrency) {
+        RateLimiter limiter = new RateLimiter(registry, true, 0.001, readBurst, 0.001, writeBurst, 100,
+                concurrency, 1, concurrency, 3.0, Duration.ofSeconds(1));
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Tools());
+        factory.addAspect(new McpToolRateLimitAspect(limiter, Set.of("add"), Set.of("watch")));
+        return factory.getProxy();
+    }
+
+    static class Tools {
+
+        @McpTool(name = "fetch", description = "fetch")
+        public String fetch(Supplier<String> body) {
+            return body.get();
+        }
+
+        @McpTool(name = "add", description = "add")
+        public void add() {
+        }
+
+        @McpTool(name = "watch", description = "watch")
+        public String watch(Supplier<String> body) {
+            return body.get();
+        }
+    }
+}
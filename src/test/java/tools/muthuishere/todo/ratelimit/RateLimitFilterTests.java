@@ -0,0 +1,95 @@
+package tools.muthuishere.todo.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import tools.muthuishere.todo.security.McpPrincipal;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new McpPrincipal("user@example.com", "uid"), null, List.of()));
+    }
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void answers429WithRetryAfterOnceTheUserIsOverBudget() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(limiter(1, 4));
+
+        MockHttpServletResponse first = call(filter, "POST", "/api/user/todos");
+        MockHttpServletResponse second = call(filter, "POST", "/api/user/todos");
+        // reads have their own budget
+        MockHttpServletResponse read = call(filter, "GET", "/api/user/todos");
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(second.getHeader(HttpHeaders.RETRY_AFTER))).isGreaterThan(1);
+        assertThat(second.getContentAsString()).contains("\"rate_limited\"");
+        assertThat(read.getStatus()).isEqualTo(200);
+        assertThat(registry.get("mcp.rate-limit.rejections").tag("reason", "user_rate").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void answers503WithRetryAfterAtTheConcurrencyLimit() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(limiter(10, 1));
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+
+        MockHttpServletResponse outer = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/todos"), outer,
+                (req, res) -> nested[0] = call(filter, "GET", "/api/user/todos/7"));
+
+        assertThat(outer.getStatus()).isEqualTo(200);
+        assertThat(nested[0].getStatus()).isEqualTo(503);
+        assertThat(nested[0].getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(nested[0].getContentAsString()).contains("\"server_busy\"");
+        // the slot is free again
+        assertThat(call(filter, "GET", "/api/user/todos").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void leavesOtherPathsAndAnonymousCallsAlone() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(limiter(1, 4));
+
+        assertThat(call(filter, "POST", "/mcp").getStatus()).isEqualTo(200);
+        assertThat(call(filter, "POST", "/mcp").getStatus()).isEqualTo(200);
+        SecurityContextHolder.clearContext();
+        assertThat(call(filter, "POST", "/api/user/todos").getStatus()).isEqualTo(200);
+        assertThat(call(filter, "POST", "/api/user/todos").getStatus()).isEqualTo(200);
+    }
+
+    // a burst of writeBurst writes, 10 reads, hardly any refill
+    private RateLimiter limiter(int writeBurst, int concurrency) {
+        return new RateLimiter(registry, true, 0.001, 10, 0.001, writeBurst, 100,
+                concurrency, 1, concurrency, 3.0, Duration.ofMillis(1500));
+    }
+
+    private static MockHttpServletResponse call(RateLimitFilter filter, String method, String path)
+            throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, path), response, (req, res) -> {
+        });
+        return response;
+    }
+}
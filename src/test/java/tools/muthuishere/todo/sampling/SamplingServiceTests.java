@@ -0,0 +1,139 @@
+package tools.muthuishere.todo.sampling;
+
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SamplingServiceTests {
+
+    private static final String OWNER = "user@example.com";
+
+    private final CountDownLatch answer = new CountDownLatch(1);
+    private SamplingService service = service(Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        answer.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void clientsWithoutSamplingAreUnsupported() {
+        McpSyncServerExchange exchange = mock(McpSyncServerExchange.class);
+        when(exchange.getClientCapabilities()).thenReturn(McpSchema.ClientCapabilities.builder().build());
+
+        assertThat(service.sample(exchange, OWNER, "system", "content")).isInstanceOf(SamplingResult.Unsupported.class);
+        assertThat(service.sample(null, OWNER, "system", "content")).isInstanceOf(SamplingResult.Unsupported.class);
+    }
+
+    @Test
+    void answersTheSameQuestionFromTheCache() {
+        McpSyncServerExchange exchange = exchange("s1", text("summary"));
+
+        assertThat(service.sample(exchange, OWNER, "system", "content")).isEqualTo(new SamplingResult.Success("summary", false));
+        assertThat(service.sample(exchange, OWNER, "system", "content")).isEqualTo(new SamplingResult.Success("summary", true));
+        assertThat(service.sample(exchange, OWNER, "other system", "content")).isEqualTo(new SamplingResult.Success("summary", false));
+        verify(exchange, times(2)).createMessage(any());
+    }
+
+    @Test
+    void keepsCachedAnswersToTheirUser() {
+        McpSyncServerExchange exchange = exchange("s1", text("summary"));
+
+        assertThat(service.sample(exchange, OWNER, "system", "content")).isEqualTo(new SamplingResult.Success("summary", false));
+        assertThat(service.sample(exchange, "other@example.com", "system", "content"))
+                .isEqualTo(new SamplingResult.Success("summary", false));
+        verify(exchange, times(2)).createMessage(any());
+    }
+
+    @Test
+    void nonTextAnswersAreNotCached() {
+        McpSyncServerExchange exchange = exchange("s1", McpSchema.CreateMessageResult.builder()
+                .content(new McpSchema.ImageContent(null, "aGk=", "image/png"))
+                .model("test")
+                .build());
+
+        assertThat(service.sample(exchange, OWNER, "system", "content")).isEqualTo(new SamplingResult.NonText("image"));
+        assertThat(service.getCacheSize()).isZero();
+    }
+
+    @Test
+    void timesOutAndGivesThePermitsBack() throws InterruptedException {
+        service = service(Duration.ofMillis(100));
+        McpSyncServerExchange exchange = blockingExchange("s1");
+
+        assertThat(service.sample(exchange, OWNER, "system", "content")).isInstanceOf(SamplingResult.TimedOut.class);
+        awaitIdle();
+        assertThat(service.getAvailableServerPermits()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsBeyondTheSessionAndServerLimits() throws InterruptedException {
+        McpSyncServerExchange first = blockingExchange("s1");
+        McpSyncServerExchange second = blockingExchange("s2");
+        McpSyncServerExchange third = blockingExchange("s3");
+
+        CompletableFuture<SamplingResult> running = service.sampleAsync(first, OWNER, "system", "one");
+        assertThat(service.sample(first, OWNER, "system", "two")).isInstanceOf(SamplingResult.Rejected.class);
+        CompletableFuture<SamplingResult> other = service.sampleAsync(second, OWNER, "system", "three");
+        assertThat(service.sample(third, OWNER, "system", "four")).isEqualTo(
+                new SamplingResult.Rejected("Server sampling capacity reached"));
+
+        answer.countDown();
+        assertThat(running.join()).isInstanceOf(SamplingResult.Success.class);
+        assertThat(other.join()).isInstanceOf(SamplingResult.Success.class);
+        awaitIdle();
+        assertThat(service.sample(first, OWNER, "system", "five")).isInstanceOf(SamplingResult.Success.class);
+    }
+
+    // at most 2 samplings on the server, 1 per session
+    private static SamplingService service(Duration timeout) {
+        return new SamplingService(2, 1, timeout, 100, 100, Duration.ofMinutes(1));
+    }
+
+    private static McpSyncServerExchange exchange(String sessionId, McpSchema.CreateMessageResult result) {
+        McpSyncServerExchange exchange = mock(McpSyncServerExchange.class);
+        when(exchange.getClientCapabilities()).thenReturn(McpSchema.ClientCapabilities.builder().sampling().build());
+        when(exchange.sessionId()).thenReturn(sessionId);
+        when(exchange.createMessage(any())).thenReturn(result);
+        return exchange;
+    }
+
+    // answers once the test counts down the latch, or is interrupted by the timeout
+    private McpSyncServerExchange blockingExchange(String sessionId) {
+        McpSyncServerExchange exchange = exchange(sessionId, null);
+        when(exchange.createMessage(any())).thenAnswer(invocation -> {
+            answer.await();
+            return text("done");
+        });
+        return exchange;
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getSessionsInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.getSessionsInFlight()).isZero();
+    }
+
+    private static McpSchema.CreateMessageResult text(String text) {
+        return McpSchema.CreateMessageResult.builder()
+                .content(new McpSchema.TextContent(text))
+                .model("test")
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package tools.muthuishere.todo.todo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import tools.muthuishere.todo.todo.model.Todo;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryTodoStoreTests extends TodoStoreContractTests {
+
+    private InMemoryTodoStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = store("", "");
+    }
+
+    @Override
+    protected TodoStore store() {
+        return store;
+    }
+
+    @Test
+    void restoresTodosAndIdsFromTheSnapshot(@TempDir Path dir) throws Exception {
+        String file = dir.resolve("todos.snapshot").toString();
+        InMemoryTodoStore first = store(file, "");
+        first.start();
+        Todo described = todo(otherEmail, "other", false);
+        described.setDescription("\u00fc".repeat(40_000));
+        first.insert(described);
+        // the deleted todo has the highest id, only the recorded counter keeps it from being reused
+        List<Todo> saved = first.insertAll(List.of(todo(email, "kept", true), todo(email, "deleted", false))).value();
+        first.delete(email, saved.get(1).getId());
+        first.stop();
+
+        InMemoryTodoStore second = store(file, "");
+        second.start();
+
+        assertThat(second.findAll(email)).singleElement()
+                .extracting(Todo::getId, Todo::getTitle, Todo::isCompleted, Todo::getCreatedAt)
+                .containsExactly(saved.get(0).getId(), "kept", true, saved.get(0).getCreatedAt());
+        assertThat(second.findAll(otherEmail)).singleElement()
+                .extracting(Todo::getDescription).isEqualTo("\u00fc".repeat(40_000));
+        assertThat(second.insert(todo(email, "next", false)).value().getId()).isGreaterThan(saved.get(1).getId());
+        assertThat(second.getUserCount()).isEqualTo(2);
+    }
+
+    @Test
+    void replaysTheWriteAheadLogAfterACrash(@TempDir Path dir) throws Exception {
+        InMemoryTodoStore first = store("", dir.toString());
+        first.start();
+        List<Todo> saved = first.insertAll(List.of(todo(email, "a", false), todo(email, "b", false))).value();
+        first.snapshot();
+        first.update(email, saved.get(0).getId(), "a2", "after the snapshot", true, saved.get(0).getUpdatedAt());
+        first.delete(email, saved.get(1).getId());
+        Long added = first.insert(todo(otherEmail, "c", false)).value().getId();
+        // no stop(): the last changes only exist in the log
+
+        InMemoryTodoStore second = store("", dir.toString());
+        second.start();
+
+        assertThat(second.findAll(email)).singleElement()
+                .extracting(Todo::getTitle, Todo::getDescription, Todo::isCompleted)
+                .containsExactly("a2", "after the snapshot", true);
+        assertThat(second.findById(otherEmail, added)).isPresent();
+        assertThat(second.count(email, true)).isEqualTo(1);
+        assertThat(second.insert(todo(email, "d", false)).value().getId()).isGreaterThan(added);
+        second.stop();
+    }
+
+    @Test
+    void takesBackWritesTheLogRefuses(@TempDir Path dir) throws Exception {
+        InMemoryTodoStore store = new InMemoryTodoStore("", Duration.ZERO, dir.toString(), true, Duration.ZERO,
+                DataSize.ofBytes(512));
+        store.start();
+        Todo saved = store.insert(todo(email, "small", false)).value();
+        // the next segment can't be created, so any write that doesn't fit the current one fails
+        Path blocker = Files.createFile(dir.resolve("wal-%016d.log".formatted(1)));
+        String large = "x".repeat(1000);
+
+        assertThatThrownBy(() -> store.update(email, saved.getId(), large, null, true, saved.getUpdatedAt()))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> store.insertAll(List.of(todo(email, "a", true), todo(email, large, true))))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> store.insert(todo(otherEmail, large, false)))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(store.findAll(email)).singleElement()
+                .extracting(Todo::getTitle, Todo::isCompleted).containsExactly("small", false);
+        assertThat(store.count(email, true)).isZero();
+        assertThat(store.getUserCount()).isEqualTo(1);
+
+        Files.delete(blocker);
+        store.stop();
+        assertThatThrownBy(() -> store.insert(todo(email, "after close", false)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(store.findAll(email)).extracting(Todo::getTitle).containsExactly("small");
+    }
+
+    @Test
+    void doesNotReuseTheIdOfATodoDeletedInTheLog(@TempDir Path dir) throws Exception {
+        InMemoryTodoStore first = store("", dir.toString());
+        first.start();
+        first.insert(todo(email, "kept", false));
+        first.snapshot();
+        Long deleted = first.insert(todo(email, "deleted", false)).value().getId();
+        first.delete(email, deleted);
+        // no stop(): both changes only exist in the log
+
+        InMemoryTodoStore second = store("", dir.toString());
+        second.start();
+
+        assertThat(second.insert(todo(email, "next", false)).value().getId()).isGreaterThan(deleted);
+        second.stop();
+    }
+
+    private static InMemoryTodoStore store(String snapshotFile, String walDir) {
+        return new InMemoryTodoStore(snapshotFile, Duration.ZERO, walDir, true, Duration.ZERO, DataSize.ofMegabytes(1));
+    }
+}
@@ -0,0 +1,22 @@
+package tools.muthuishere.todo.todo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// the default stdio profile runs without JPA, switch it back on; no test transaction, the store opens its own
+@DataJpaTest(properties = {"todo.store=jpa", "spring.autoconfigure.exclude="})
+@Import(JpaTodoStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaTodoStoreTests extends TodoStoreContractTests {
+
+    @Autowired
+    private JpaTodoStore store;
+
+    @Override
+    protected TodoStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,60 @@
+package tools.muthuishere.todo.todo;
+
+import org.junit.jupiter.api.Test;
+import tools.muthuishere.todo.todo.model.Todo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoCacheTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final TodoCache cache = new TodoCache(true, 100, 2, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void doesNotCacheUnknownIds() {
+        cache.get(EMAIL, 42L, this::missing);
+        cache.get(EMAIL, 42L, this::missing);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void capsSingleTodosPerUser() {
+        cache.get(EMAIL, 1L, () -> found(1L));
+        cache.get(EMAIL, 2L, () -> found(2L));
+        cache.get(EMAIL, 3L, () -> found(3L));
+        cache.get(EMAIL, 1L, () -> found(1L));
+        cache.get(EMAIL, 3L, () -> found(3L));
+
+        // 1 and 2 fill the partition, 3 is loaded again
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void handsOutCopiesCallersMayModify() {
+        cache.getAll(EMAIL, () -> List.of(found(1L).orElseThrow()));
+        cache.getAll(EMAIL, () -> List.of()).getFirst().setTitle("changed by a caller");
+        cache.get(EMAIL, 1L, () -> found(1L));
+        cache.get(EMAIL, 1L, () -> found(1L)).orElseThrow().setTitle("changed by a caller");
+
+        assertThat(cache.getAll(EMAIL, List::of)).singleElement().extracting(Todo::getTitle).isEqualTo("t1");
+        assertThat(cache.get(EMAIL, 1L, Optional::empty)).get().extracting(Todo::getTitle).isEqualTo("t1");
+    }
+
+    private Optional<Todo> missing() {
+        loads.incrementAndGet();
+        return Optional.empty();
+    }
+
+    private Optional<Todo> found(long id) {
+        loads.incrementAndGet();
+        return Optional.of(Todo.builder().id(id).title("t" + id).email(EMAIL).build());
+    }
+}
@@ -0,0 +1,194 @@
+package tools.muthuishere.todo.todo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.muthuishere.todo.cluster.ChangeNotification;
+import tools.muthuishere.todo.cluster.ChangeNotificationBus;
+import tools.muthuishere.todo.cluster.InProcessChangeNotificationBus;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoChange;
+import tools.muthuishere.todo.todo.model.TodoChangeBatch;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TodoChangeFeedTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private TodoChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new TodoChangeFeed(3, 2, new InProcessChangeNotificationBus("", "", 100));
+    }
+
+    @Test
+    void startsWithResyncThenDeliversCoalescedChanges() throws InterruptedException {
+        TodoChangeFeed.Subscription subscription = feed.subscribe(EMAIL);
+        assertThat(subscription.poll(Duration.ZERO).isResync()).isTrue();
+
+        feed.publish(EMAIL, 1, TodoChange.Type.CREATED, List.of(todo(1L), todo(2L)));
+        feed.publishIds(EMAIL, 2, TodoChange.Type.DELETED, List.of(1L));
+        feed.publish("other@example.com", 3, TodoChange.Type.CREATED, List.of(todo(3L)));
+
+        TodoChangeBatch batch = subscription.poll(Duration.ZERO);
+        assertThat(batch.isResync()).isFalse();
+        assertThat(batch.getChanges()).extracting(TodoChange::getTodoId, TodoChange::getType)
+                .containsExactly(
+                        tuple(2L, TodoChange.Type.CREATED),
+                        tuple(1L, TodoChange.Type.DELETED));
+        assertThat(subscription.poll(Duration.ZERO).isEmpty()).isTrue();
+    }
+
+    @Test
+    void asksSlowSubscribersToResync() throws InterruptedException {
+        TodoChangeFeed.Subscription subscription = feed.subscribe(EMAIL);
+        subscription.poll(Duration.ZERO);
+
+        feed.publishIds(EMAIL, 4, TodoChange.Type.COMPLETED, List.of(1L, 2L, 3L, 4L));
+
+        TodoChangeBatch batch = subscription.poll(Duration.ZERO);
+        assertThat(batch.isResync()).isTrue();
+        assertThat(batch.getChanges()).isEmpty();
+    }
+
+    @Test
+    void resumesFromTheCursorOfAnEarlierSubscription() throws InterruptedException {
+        InProcessChangeNotificationBus bus = new InProcessChangeNotificationBus("feed-" + UUID.randomUUID(), "", 100);
+        try {
+            TodoChangeFeed clustered = new TodoChangeFeed(3, 2, bus);
+            TodoChangeFeed.Subscription first = clustered.subscribe(EMAIL);
+            long cursor = first.poll(Duration.ZERO).getCursor();
+            first.close();
+
+            clustered.publish(EMAIL, 5, TodoChange.Type.CREATED, List.of(todo(1L)));
+            clustered.publishIds(EMAIL, 6, TodoChange.Type.COMPLETED, List.of(1L));
+            clustered.publishIds(EMAIL, 7, TodoChange.Type.DELETED, List.of(2L));
+
+            TodoChangeFeed.Subscription resumed = clustered.resume(EMAIL, cursor);
+            TodoChangeBatch batch = resumed.poll(Duration.ZERO);
+            assertThat(batch.isResync()).isFalse();
+            assertThat(batch.getChanges()).extracting(TodoChange::getTodoId, TodoChange::getType)
+                    .containsExactly(
+                            tuple(1L, TodoChange.Type.COMPLETED),
+                            tuple(2L, TodoChange.Type.DELETED));
+            assertThat(batch.getCursor()).isEqualTo(cursor + 3);
+        } finally {
+            bus.destroy();
+        }
+    }
+
+    @Test
+    void resumesWithResyncAfterChangesNobodySubscribedTo() throws InterruptedException {
+        TodoChangeFeed.Subscription first = feed.subscribe(EMAIL);
+        long cursor = first.poll(Duration.ZERO).getCursor();
+        first.close();
+
+        // without a cluster and without subscribers this is not published
+        feed.publishIds(EMAIL, 8, TodoChange.Type.DELETED, List.of(1L));
+
+        assertThat(feed.resume(EMAIL, cursor).poll(Duration.ZERO).isResync()).isTrue();
+    }
+
+    @Test
+    void keepsTheCursorBelowChangesThatMayStillCommit() throws InterruptedException {
+        LateCommitBus bus = new LateCommitBus();
+        TodoChangeFeed lagging = new TodoChangeFeed(3, 2, bus);
+        TodoChangeFeed.Subscription subscription = lagging.subscribe(EMAIL);
+        subscription.poll(Duration.ZERO);
+
+        // sequence 1 was handed out first but commits after 2
+        bus.deliver(2, 2L, 0);
+        TodoChangeBatch batch = subscription.poll(Duration.ZERO);
+        assertThat(batch.getChanges()).extracting(TodoChange::getSequence).containsExactly(2L);
+        assertThat(batch.getCursor()).isZero();
+
+        bus.deliver(1, 1L, 2);
+        bus.deliver(2, 2L, 2);
+        batch = subscription.poll(Duration.ZERO);
+        assertThat(batch.getChanges()).extracting(TodoChange::getSequence).containsExactly(1L);
+        assertThat(batch.getCursor()).isEqualTo(2);
+        assertThat(subscription.poll(Duration.ZERO).isEmpty()).isTrue();
+    }
+
+    @Test
+    void asksForResyncWhenAnOlderWriteIsPublishedAfterANewerOne() throws InterruptedException {
+        TodoChangeFeed.Subscription subscription = feed.subscribe(EMAIL);
+        subscription.poll(Duration.ZERO);
+
+        feed.publish(EMAIL, 8, TodoChange.Type.UPDATED, List.of(todo(1L)));
+        feed.publish(EMAIL, 7, TodoChange.Type.UPDATED, List.of(todo(1L)));
+
+        TodoChangeBatch batch = subscription.poll(Duration.ZERO);
+        assertThat(batch.isResync()).isTrue();
+        assertThat(batch.getChanges()).isEmpty();
+    }
+
+    @Test
+    void closesTheOldestSubscriptionOverTheLimit() {
+        TodoChangeFeed.Subscription first = feed.subscribe(EMAIL);
+        feed.subscribe(EMAIL);
+        feed.subscribe(EMAIL);
+
+        assertThat(first.isClosed()).isTrue();
+        assertThat(feed.getSubscriptionCount()).isEqualTo(2);
+    }
+
+    private static Todo todo(Long id) {
+        return Todo.builder().id(id).title("Todo " + id).email(EMAIL).build();
+    }
+
+    // delivers whatever the test says, with the contiguous sequence the test says
+    private static final class LateCommitBus implements ChangeNotificationBus {
+        private Consumer<ChangeNotification> listener;
+        private long last;
+        private long contiguous;
+
+        void deliver(long sequence, Long todoId, long contiguousAfter) {
+            last = Math.max(last, sequence);
+            listener.accept(new ChangeNotification(sequence, "other", EMAIL, TodoChange.Type.DELETED, todoId, null));
+            contiguous = contiguousAfter;
+        }
+
+        @Override
+        public void publish(List<ChangeNotification> changes) {
+        }
+
+        @Override
+        public void subscribe(Consumer<ChangeNotification> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public Optional<List<ChangeNotification>> since(String email, long sequence) {
+            return Optional.empty();
+        }
+
+        @Override
+        public long getLastSequence() {
+            return last;
+        }
+
+        @Override
+        public long getContiguousSequence() {
+            return contiguous;
+        }
+
+        @Override
+        public boolean isClustered() {
+            return true;
+        }
+
+        @Override
+        public String getNodeId() {
+            return "node";
+        }
+    }
+}
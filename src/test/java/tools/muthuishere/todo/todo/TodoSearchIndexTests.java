@@ -0,0 +1,111 @@
+package tools.muthuishere.todo.todo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoSearchHit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoSearchIndexTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private TodoSearchIndex index;
+    private List<Todo> stored;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        index = new TodoSearchIndex(100, Duration.ofMinutes(5));
+        stored = new ArrayList<>(List.of(
+                todo(1L, "Buy milk", "from the corner shop", false),
+                todo(2L, "Call plumber", "kitchen sink leaks, buy a new tap", false),
+                todo(3L, "Buy birthday present", "milk frother for Sam", true)));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void ranksMoreAndTitleMatchesFirst() {
+        assertThat(ids(search("buy milk", null))).containsExactly(1L, 3L, 2L);
+        assertThat(ids(search("BUY", null))).containsExactly(1L, 3L, 2L);
+        assertThat(ids(search("nothing here", null))).isEmpty();
+    }
+
+    @Test
+    void filtersByCompletionAndLimits() {
+        assertThat(ids(search("buy", true))).containsExactly(3L);
+        assertThat(index.search(EMAIL, "buy", null, 1, this::load)).hasSize(1);
+    }
+
+    @Test
+    void appliesWritesIncrementallyAfterTheFirstSearch() {
+        search("milk", null);
+
+        index.put(EMAIL, 1, List.of(todo(4L, "Oat milk", null, false)));
+        index.put(EMAIL, 2, List.of(todo(1L, "Buy bread", "from the corner shop", false)));
+        index.remove(EMAIL, 3, List.of(3L));
+        index.setCompleted(EMAIL, 4, List.of(4L), true);
+
+        assertThat(ids(search("milk", null))).containsExactly(4L);
+        assertThat(search("milk", null).get(0).isCompleted()).isTrue();
+        assertThat(ids(search("bread", null))).containsExactly(1L);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void rebuildsInsteadOfApplyingAWriteOvertakenByANewerOne() {
+        search("milk", null);
+
+        // the store applied version 5 after version 4, the index hears of them the other way round
+        stored.set(0, todo(1L, "Buy oat milk", "from the corner shop", false));
+        index.put(EMAIL, 5, List.of(stored.get(0)));
+        index.put(EMAIL, 4, List.of(todo(1L, "Buy soy milk", "from the corner shop", false)));
+
+        assertThat(search("oat", null)).extracting(TodoSearchHit::getTitle).containsExactly("Buy oat milk");
+        assertThat(search("soy", null)).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void treatsWritesFromBeforeABuildAsLoaded() {
+        index.put(EMAIL, 7, List.of(todo(1L, "Buy oat milk", "from the corner shop", false)));
+        stored.set(0, todo(1L, "Buy oat milk", "from the corner shop", false));
+        search("milk", null);
+
+        // a slow writer's older state arrives after the partition was built from newer rows
+        index.put(EMAIL, 6, List.of(todo(1L, "Buy soy milk", "from the corner shop", false)));
+
+        assertThat(search("soy", null)).isEmpty();
+        assertThat(search("oat", null)).extracting(TodoSearchHit::getTitle).containsExactly("Buy oat milk");
+    }
+
+    @Test
+    void keepsUsersApart() {
+        search("milk", null);
+
+        assertThat(index.search("other@example.com", "milk", null, 10, List::of)).isEmpty();
+    }
+
+    private List<TodoSearchHit> search(String query, Boolean completed) {
+        return index.search(EMAIL, query, completed, 10, this::load);
+    }
+
+    private List<Todo> load() {
+        loads.incrementAndGet();
+        return stored;
+    }
+
+    private static List<Long> ids(List<TodoSearchHit> hits) {
+        return hits.stream().map(TodoSearchHit::getId).toList();
+    }
+
+    private static Todo todo(Long id, String title, String description, boolean completed) {
+        return Todo.builder().id(id).title(title).description(description).completed(completed).build();
+    }
+}
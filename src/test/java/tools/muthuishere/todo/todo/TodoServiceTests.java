@@ -0,0 +1,63 @@
+package tools.muthuishere.todo.todo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import tools.muthuishere.todo.cluster.InProcessChangeNotificationBus;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoChange;
+import tools.muthuishere.todo.todo.model.TodoChangeBatch;
+import tools.muthuishere.todo.todo.model.TodoSearchHit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoServiceTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final InMemoryTodoStore store = new InMemoryTodoStore("", Duration.ZERO, "", false, Duration.ZERO,
+            DataSize.ofMegabytes(1));
+    private final TodoChangeFeed feed = new TodoChangeFeed(16, 2, new InProcessChangeNotificationBus("", "", 100));
+    private final TodoService service = new TodoService(store, new TodoCache(true, 100, 100, Duration.ofMinutes(5)),
+            new TodoSearchIndex(100, Duration.ofMinutes(5)), feed);
+
+    @Test
+    void concurrentUpdatesReachTheIndexAndFeedInStoreOrder() throws Exception {
+        Todo todo = service.createTodo(Todo.builder().title("rev start").build(), EMAIL);
+        // load the search partition, so later writes are applied to it instead of rebuilding it
+        service.searchTodos(EMAIL, "rev", null, 10);
+        TodoChangeFeed.Subscription subscription = feed.subscribe(EMAIL);
+        subscription.poll(Duration.ZERO);
+
+        try (ExecutorService writers = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                int writer = w;
+                running.add(writers.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        service.updateTodo(todo.getId(), Todo.builder().title("rev w" + writer + "n" + i).build(), EMAIL);
+                    }
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        }
+
+        String stored = store.findById(EMAIL, todo.getId()).orElseThrow().getTitle();
+        assertThat(service.searchTodos(EMAIL, "rev", null, 10)).singleElement()
+                .extracting(TodoSearchHit::getTitle).isEqualTo(stored);
+        // a write that reached the feed behind a newer one makes the subscriber refetch instead
+        TodoChangeBatch batch = subscription.poll(Duration.ZERO);
+        if (!batch.isResync()) {
+            assertThat(batch.getChanges()).singleElement()
+                    .extracting(TodoChange::getTodo).extracting(Todo::getTitle).isEqualTo(stored);
+        }
+    }
+}
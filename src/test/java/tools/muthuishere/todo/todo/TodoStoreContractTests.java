@@ -0,0 +1,168 @@
+package tools.muthuishere.todo.todo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.muthuishere.todo.todo.model.Todo;
+import tools.muthuishere.todo.todo.model.TodoDailyCount;
+import tools.muthuishere.todo.todo.model.TodoStats;
+import tools.muthuishere.todo.todo.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour every TodoStore has to share, run against each implementation by a subclass.
+ */
+abstract class TodoStoreContractTests {
+
+    protected String email;
+    protected String otherEmail;
+
+    protected abstract TodoStore store();
+
+    @BeforeEach
+    void newUsers() {
+        // fresh users per test, so stores that keep data between tests don't leak into each other
+        email = "user-" + UUID.randomUUID() + "@example.com";
+        otherEmail = "other-" + UUID.randomUUID() + "@example.com";
+    }
+
+    @Test
+    void insertsAndFindsByOwner() {
+        Todo saved = store().insert(todo(email, "Buy milk", false)).value();
+        store().insert(todo(otherEmail, "Not mine", false));
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(store().findById(email, saved.getId())).get()
+                .extracting(Todo::getTitle, Todo::getEmail)
+                .containsExactly("Buy milk", email);
+        assertThat(store().findById(otherEmail, saved.getId())).isEmpty();
+        assertThat(store().findAll(email)).extracting(Todo::getTitle).containsExactly("Buy milk");
+        assertThat(store().count(email)).isEqualTo(1);
+    }
+
+    @Test
+    void insertsBatchesInInputOrder() {
+        List<Todo> saved = store().insertAll(List.of(
+                todo(email, "one", false), todo(email, "two", true), todo(email, "three", false))).value();
+
+        assertThat(saved).extracting(Todo::getTitle).containsExactly("one", "two", "three");
+        assertThat(saved).extracting(Todo::getId).doesNotContainNull().isSorted();
+        assertThat(store().count(email, true)).isEqualTo(1);
+        assertThat(store().count(email, false)).isEqualTo(2);
+        assertThat(store().findByCompleted(email, true)).extracting(Todo::getTitle).containsExactly("two");
+    }
+
+    @Test
+    void pagesAndStreamsInIdOrder() {
+        List<Long> ids = ids(store().insertAll(List.of(
+                todo(email, "a", false), todo(email, "b", false), todo(email, "c", false))).value());
+
+        assertThat(ids(store().findPage(email, 0L, 2))).containsExactly(ids.get(0), ids.get(1));
+        assertThat(ids(store().findPage(email, ids.get(1), 2))).containsExactly(ids.get(2));
+        assertThat(store().findPage(email, ids.get(2), 2)).isEmpty();
+
+        List<List<Long>> chunks = new ArrayList<>();
+        store().stream(email, 2, chunk -> chunks.add(ids(chunk)));
+        assertThat(chunks).containsExactly(ids.subList(0, 2), ids.subList(2, 3));
+    }
+
+    @Test
+    void summarizesWithOptionalFilter() {
+        store().insertAll(List.of(todo(email, "open", false), todo(email, "done", true)));
+
+        assertThat(store().findSummaries(email, null)).extracting(TodoSummary::getTitle).containsExactly("open", "done");
+        assertThat(store().findSummaries(email, true)).extracting(TodoSummary::getTitle).containsExactly("done");
+    }
+
+    @Test
+    void updatesOnlyTheOwnersTodo() {
+        Todo saved = store().insert(todo(email, "Draft", false)).value();
+        LocalDateTime later = saved.getUpdatedAt().plusMinutes(5);
+
+        assertThat(store().update(otherEmail, saved.getId(), "Hijacked", null, true, later).value()).isEmpty();
+        assertThat(store().update(email, saved.getId(), "Final", "text", true, later).value()).get()
+                .extracting(Todo::getTitle, Todo::getDescription, Todo::isCompleted)
+                .containsExactly("Final", "text", true);
+        assertThat(store().findById(email, saved.getId())).get()
+                .extracting(Todo::getTitle, Todo::getUpdatedAt)
+                .containsExactly("Final", later);
+    }
+
+    @Test
+    void setsCompletedSingleAndBatch() {
+        List<Long> ids = ids(store().insertAll(List.of(todo(email, "a", false), todo(email, "b", false))).value());
+        Long foreign = store().insert(todo(otherEmail, "c", false)).value().getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(store().setCompleted(email, ids.get(0), true, now).value()).isTrue();
+        assertThat(store().setCompleted(email, foreign, true, now).value()).isFalse();
+        assertThat(store().setCompleted(email, List.of(ids.get(1), foreign, -1L), true, now).value())
+                .containsExactly(ids.get(1));
+        assertThat(store().count(email, true)).isEqualTo(2);
+        assertThat(store().count(otherEmail, true)).isZero();
+    }
+
+    @Test
+    void deletesSingleAndBatch() {
+        List<Long> ids = ids(store().insertAll(List.of(
+                todo(email, "a", false), todo(email, "b", false), todo(email, "c", false))).value());
+        Long foreign = store().insert(todo(otherEmail, "d", false)).value().getId();
+
+        assertThat(store().delete(email, ids.get(0)).value()).isTrue();
+        assertThat(store().delete(email, ids.get(0)).value()).isFalse();
+        assertThat(store().delete(email, List.of(ids.get(1), foreign)).value()).containsExactly(ids.get(1));
+        assertThat(ids(store().findAll(email))).containsExactly(ids.get(2));
+        assertThat(store().findById(otherEmail, foreign)).isPresent();
+    }
+
+    @Test
+    void countsStatsPerDay() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime twoDaysAgo = today.minusDays(2).atTime(10, 0);
+        Todo old = todo(email, "old", true);
+        old.setCreatedAt(twoDaysAgo);
+        old.setUpdatedAt(twoDaysAgo);
+        store().insertAll(List.of(old, todo(email, "new", false)));
+
+        TodoStats stats = store().getStats(email, today.minusDays(2), 3);
+
+        assertThat(stats.getTotal()).isEqualTo(2);
+        assertThat(stats.getCompleted()).isEqualTo(1);
+        assertThat(stats.getPending()).isEqualTo(1);
+        assertThat(stats.getCreatedPerDay()).extracting(TodoDailyCount::getDay)
+                .containsExactly(today.minusDays(2), today.minusDays(1), today);
+        assertThat(stats.getCreatedPerDay()).extracting(TodoDailyCount::getCount).containsExactly(1L, 0L, 1L);
+        assertThat(stats.getUpdatedPerDay()).extracting(TodoDailyCount::getCount).containsExactly(1L, 0L, 1L);
+    }
+
+    @Test
+    void unknownUsersHaveNothing() {
+        assertThat(store().findAll(email)).isEmpty();
+        assertThat(store().findById(email, 1L)).isEmpty();
+        assertThat(store().count(email)).isZero();
+        assertThat(store().delete(email, List.of(1L)).value()).isEmpty();
+        assertThat(store().getStats(email, LocalDate.now(), 1).getTotal()).isZero();
+    }
+
+    protected static Todo todo(String email, String title, boolean completed) {
+        // whole seconds, so timestamps compare equal after any store's precision
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        return Todo.builder()
+                .title(title)
+                .completed(completed)
+                .email(email)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static List<Long> ids(List<Todo> todos) {
+        return todos.stream().map(Todo::getId).toList();
+    }
+}
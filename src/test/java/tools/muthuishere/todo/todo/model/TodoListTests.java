@@ -0,0 +1,70 @@
+package tools.muthuishere.todo.todo.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoListTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final List<Todo> todos = List.of(
+            todo(1L, "Buy milk", "x".repeat(300)),
+            todo(2L, "Call plumber", null));
+
+    @Test
+    void fullIsTheEntityAsJacksonWritesIt() throws Exception {
+        JsonNode shaped = objectMapper.readTree(objectMapper.writeValueAsString(TodoList.of(todos, TodoShape.FULL)));
+
+        assertThat(shaped).isEqualTo(objectMapper.valueToTree(todos));
+    }
+
+    @Test
+    void compactLeavesOutOwnerTimestampsAndNulls() throws Exception {
+        JsonNode shaped = objectMapper.readTree(objectMapper.writeValueAsString(TodoList.of(todos, TodoShape.COMPACT)));
+
+        assertThat(shaped.get(0).fieldNames()).toIterable().containsExactly("id", "title", "description", "completed");
+        // whole, a description read here is written back by change-todo
+        assertThat(shaped.get(0).get("description").asText()).isEqualTo("x".repeat(300));
+        assertThat(shaped.get(1).fieldNames()).toIterable().containsExactly("id", "title", "completed");
+    }
+
+    @Test
+    void fieldsOverrideTheView() throws Exception {
+        TodoShape shape = TodoShape.of("full", " title, id ", TodoShape.COMPACT);
+
+        String json = objectMapper.writeValueAsString(TodoList.of(todos, shape));
+
+        assertThat(json).isEqualTo("[{\"id\":1,\"title\":\"Buy milk\"},{\"id\":2,\"title\":\"Call plumber\"}]");
+    }
+
+    @Test
+    void resolvesViews() {
+        assertThat(TodoShape.of(null, null, TodoShape.COMPACT)).isSameAs(TodoShape.COMPACT);
+        assertThat(TodoShape.of("FULL", "", TodoShape.COMPACT)).isSameAs(TodoShape.FULL);
+        assertThatThrownBy(() -> TodoShape.of("tiny", null, TodoShape.COMPACT))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TodoShape.of(null, "id,owner", TodoShape.COMPACT))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("owner");
+    }
+
+    private static Todo todo(Long id, String title, String description) {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        return Todo.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .email("user@example.com")
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+}